@@ -0,0 +1,413 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs the same seat plan workload against every version under {@code versions/} and prints two
+ * tables, nanoseconds and bytes allocated per operation, with one column per version.
+ * <p>
+ * All versions declare their classes in the default package under the same names, so each one is
+ * loaded by its own class loader from the class path given on the command line as
+ * {@code <version>=<path>[:<path>...]}, and its {@code SeatPlan} is driven through method handles.
+ * Every operation runs only on versions whose {@code SeatPlan} has the methods it needs. Each
+ * measured round prepares fresh plans built with the version's default constructor, half of their
+ * seats booked with the same seeded choice in every version, and then times one pass of the
+ * operation over them. The reported time is the median over the rounds.
+ */
+public class VersionComparisonBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(VersionComparisonBenchmark.class);
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 20;
+    private static final int PLANS_PER_ROUND = 10;
+    private static final int QUERIES_PER_PLAN = 20;
+    private static final int OCCUPANCY_PERCENT = 50;
+    private static final String[] SEAT_CLASSES = {"BUSINESS", "PREMIUM_ECONOMY", "ECONOMY"};
+    private static final String[] POSITIONS = {"WINDOW", "AISLE", "MIDDLE"};
+
+    private static final List<Operation> OPERATIONS = List.of(
+            new Operation("new SeatPlan()", List.of(), (version, plan) -> { }, (version, plans) -> {
+                for (int i = 0; i < plans.length; i++) version.newPlan();
+                return plans.length;
+            }),
+            new Operation("getSeatsByClassAndRow", List.of("getSeatsByClassAndRow"), Version::fill, (version, plans) -> {
+                MethodHandle query = version.method("getSeatsByClassAndRow");
+                for (Object plan : plans) {
+                    for (int row = 1; row < version.rowClasses.length; row++) {
+                        version.sink.consume(query.invokeExact(plan, version.rowClasses[row], row));
+                    }
+                }
+                return plans.length * (version.rowClasses.length - 1);
+            }),
+            new Operation("bookSeat", List.of("bookSeat"), Version::fill, (version, plans) -> {
+                MethodHandle book = version.method("bookSeat");
+                for (Object plan : plans) {
+                    for (SeatRef seat : version.free) {
+                        version.sink.consume((boolean) book.invokeExact(plan, seat.row(), seat.letter(), version.booking));
+                    }
+                }
+                return plans.length * version.free.size();
+            }),
+            new Operation("reserveSeat", List.of("bookSeat", "reserveSeat"), Version::fill, (version, plans) -> {
+                MethodHandle reserve = version.method("reserveSeat");
+                for (Object plan : plans) {
+                    for (SeatRef seat : version.free) {
+                        version.sink.consume((boolean) reserve.invokeExact(plan, seat.row(), seat.letter(), version.reservation));
+                    }
+                }
+                return plans.length * version.free.size();
+            }),
+            new Operation("confirmReservation", List.of("bookSeat", "reserveSeat", "confirmReservation"), (version, plan) -> {
+                version.fill(plan);
+                version.apply("reserveSeat", plan, version.free, version.reservation);
+            }, (version, plans) -> {
+                MethodHandle confirm = version.method("confirmReservation");
+                for (Object plan : plans) {
+                    for (SeatRef seat : version.free) {
+                        version.sink.consume((boolean) confirm.invokeExact(plan, seat.row(), seat.letter(), "BN-1"));
+                    }
+                }
+                return plans.length * version.free.size();
+            }),
+            new Operation("cancelSeat", List.of("bookSeat", "cancelSeat"), Version::fill, (version, plans) -> {
+                for (Object plan : plans) version.apply("cancelSeat", plan, version.booked, null);
+                return plans.length * version.booked.size();
+            }),
+            new Operation("swapSeats", List.of("bookSeat", "swapSeats"), Version::fill, (version, plans) -> {
+                MethodHandle swap = version.method("swapSeats");
+                for (Object plan : plans) {
+                    for (int i = 0; i + 1 < version.booked.size(); i += 2) {
+                        SeatRef first = version.booked.get(i);
+                        SeatRef second = version.booked.get(i + 1);
+                        version.sink.consume((boolean) swap.invokeExact(plan, first.row(), first.letter(),
+                                second.row(), second.letter()));
+                    }
+                }
+                return plans.length * (version.booked.size() / 2);
+            }),
+            new Operation("blockSeat", List.of("bookSeat", "blockSeat"), Version::fill, (version, plans) -> {
+                for (Object plan : plans) version.apply("blockSeat", plan, version.free, null);
+                return plans.length * version.free.size();
+            }),
+            new Operation("releaseSeat", List.of("bookSeat", "blockSeat", "releaseSeat"), (version, plan) -> {
+                version.fill(plan);
+                version.apply("blockSeat", plan, version.free, null);
+            }, (version, plans) -> {
+                for (Object plan : plans) version.apply("releaseSeat", plan, version.free, null);
+                return plans.length * version.free.size();
+            }),
+            new Operation("findAvailableSeats", List.of("bookSeat", "findAvailableSeats"), Version::fill, (version, plans) -> {
+                MethodHandle find = version.method("findAvailableSeats");
+                for (Object plan : plans) {
+                    for (Object seatClass : version.seatClasses) {
+                        for (Object position : version.positions) {
+                            version.sink.consume(find.invokeExact(plan, seatClass, position, false));
+                        }
+                    }
+                }
+                return plans.length * version.seatClasses.length * version.positions.length;
+            }),
+            new Operation("getOccupiedSeats", List.of("bookSeat", "getOccupiedSeats"), Version::fill,
+                    (version, plans) -> version.query("getOccupiedSeats", plans)),
+            new Operation("calculateOccupancyStats", List.of("bookSeat", "calculateOccupancyStats"), Version::fill,
+                    (version, plans) -> version.query("calculateOccupancyStats", plans)),
+            // Sweeps of a plan whose held seats are reserved rather than booked, none of them due yet
+            new Operation("releaseExpiredReservations", List.of("reserveSeat", "releaseExpiredReservations"),
+                    (version, plan) -> version.apply("reserveSeat", plan, version.booked, version.reservation),
+                    (version, plans) -> {
+                        MethodHandle sweep = version.method("releaseExpiredReservations");
+                        for (Object plan : plans) {
+                            for (int i = 0; i < QUERIES_PER_PLAN; i++) sweep.invokeExact(plan);
+                        }
+                        return plans.length * QUERIES_PER_PLAN;
+                    })
+    );
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Throwable {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: VersionComparisonBenchmark <version>=<classpath> ...");
+        }
+        List<Version> versions = new ArrayList<>();
+        for (String arg : args) {
+            versions.add(Version.load(arg));
+        }
+
+        VersionComparisonBenchmark benchmark = new VersionComparisonBenchmark();
+        Result[][] results = new Result[OPERATIONS.size()][versions.size()];
+        for (int v = 0; v < versions.size(); v++) {
+            log.info("Measuring {} ({} seats)", versions.get(v).name, versions.get(v).seatCount);
+            for (int op = 0; op < OPERATIONS.size(); op++) {
+                results[op][v] = benchmark.measure(OPERATIONS.get(op), versions.get(v));
+            }
+        }
+        printTable("ns/op", versions, results, Result::nanosPerOperation);
+        printTable("bytes/op", versions, results, Result::bytesPerOperation);
+    }
+
+    /** @return the result, or {@code null} if the version does not support the operation */
+    private Result measure(Operation operation, Version version) {
+        if (!operation.requires().stream().allMatch(version::supports)) return null;
+        double[] nanosPerOperation = new double[ROUNDS];
+        long allocated = 0;
+        long operations = 0;
+        try {
+            for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+                Object[] plans = new Object[PLANS_PER_ROUND];
+                for (int i = 0; i < plans.length; i++) {
+                    plans[i] = version.newPlan();
+                    operation.setup().prepare(version, plans[i]);
+                }
+                long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                int count = operation.run().run(version, plans);
+                long elapsed = System.nanoTime() - start;
+                long bytes = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                version.sink.publish();
+                if (round >= 0) {
+                    nanosPerOperation[round] = (double) elapsed / count;
+                    allocated += bytes;
+                    operations += count;
+                }
+            }
+        } catch (Throwable e) {
+            log.warn("{} failed on {}", operation.name(), version.name, e);
+            return Result.FAILED;
+        }
+        Arrays.sort(nanosPerOperation);
+        return new Result(nanosPerOperation[ROUNDS / 2], (double) allocated / operations);
+    }
+
+    private static void printTable(String unit, List<Version> versions, Result[][] results,
+                                   ToDoubleFunction<Result> value) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-28s", unit));
+        for (Version version : versions) line.append(String.format(Locale.ROOT, "%10s", version.label));
+        log.info("{}", line);
+        for (int op = 0; op < OPERATIONS.size(); op++) {
+            line.setLength(0);
+            line.append(String.format(Locale.ROOT, "%-28s", OPERATIONS.get(op).name()));
+            for (Result result : results[op]) {
+                String cell = result == null ? "-"
+                        : result == Result.FAILED ? "failed"
+                        : String.format(Locale.ROOT, "%.0f", value.applyAsDouble(result));
+                line.append(String.format(Locale.ROOT, "%10s", cell));
+            }
+            log.info("{}", line);
+        }
+    }
+
+    /** One measured operation: {@code setup} prepares each plan, {@code run} is timed. */
+    private record Operation(String name, List<String> requires, Setup setup, Run run) {}
+
+    private interface Setup {
+        void prepare(Version version, Object plan) throws Throwable;
+    }
+
+    private interface Run {
+        /** @return the number of operations performed */
+        int run(Version version, Object[] plans) throws Throwable;
+    }
+
+    private record Result(double nanosPerOperation, double bytesPerOperation) {
+        static final Result FAILED = new Result(Double.NaN, Double.NaN);
+    }
+
+    private record SeatRef(int row, String letter) {}
+
+    /**
+     * Takes the result of every timed call so the JIT cannot drop a call, or the objects it
+     * returns, as dead code. Objects are compared against a volatile field they never equal, as
+     * JMH's Blackhole does, which keeps them from being optimized away; counts are summed and
+     * published to a volatile field after each round.
+     */
+    private static final class Sink {
+        private volatile Object never = new Object();
+        private volatile long published;
+        private long count;
+        Object escaped;
+
+        void consume(Object result) {
+            if (result == never) escaped = result;
+        }
+
+        void consume(boolean result) {
+            if (result) count++;
+        }
+
+        void publish() {
+            published += count;
+            count = 0;
+        }
+    }
+
+    /**
+     * One version's classes in their own class loader, with its {@code SeatPlan} methods as handles
+     * whose parameter types are erased to {@code Object} except primitives and {@code String}.
+     */
+    private static final class Version {
+        final String name;
+        final String label;
+        final MethodHandle constructor;
+        final Map<String, MethodHandle> methods = new HashMap<>();
+        final Object booking;
+        final Object reservation;
+        final Object[] seatClasses;
+        final Object[] positions;
+        // Seat class of each row, indexed by row number
+        final Object[] rowClasses;
+        final List<SeatRef> booked = new ArrayList<>();
+        final List<SeatRef> free = new ArrayList<>();
+        final int seatCount;
+        final Sink sink = new Sink();
+
+        private Version(String name, ClassLoader loader) throws Throwable {
+            this.name = name;
+            this.label = name.contains("_") ? name.substring(0, name.indexOf('_')) : name;
+            Class<?> planClass = loader.loadClass("SeatPlan");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            this.constructor = lookup.findConstructor(planClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            for (Method method : planClass.getMethods()) {
+                if (method.getDeclaringClass() == planClass) {
+                    MethodHandle handle = lookup.unreflect(method);
+                    methods.put(method.getName(), handle.asType(generic(handle.type())));
+                }
+            }
+            this.booking = supports("bookSeat")
+                    ? newRecord(loader, "Booking", "Benchmark Passenger", "BN-1", "")
+                    : null;
+            this.reservation = supports("reserveSeat")
+                    ? newRecord(loader, "Reservation", "Benchmark Passenger", "RES-1",
+                            Instant.now().plus(Duration.ofDays(1)), "")
+                    : null;
+            this.seatClasses = constants(loader, "SeatClass", SEAT_CLASSES);
+            this.positions = supports("findAvailableSeats") ? constants(loader, "SeatPosition", POSITIONS) : null;
+
+            Object plan = constructor.invokeExact();
+            Object allSeats = method("getSeats").invokeExact(plan);
+            List<?> seats = (List<?>) allSeats;
+            Class<?> seatClass = loader.loadClass("Seat");
+            Method getRow = seatClass.getMethod("getRow");
+            Method getSeatLetter = seatClass.getMethod("getSeatLetter");
+            Method getSeatClass = seatClass.getMethod("getSeatClass");
+            List<SeatRef> refs = new ArrayList<>();
+            Map<Integer, Object> classByRow = new HashMap<>();
+            for (Object seat : seats) {
+                SeatRef ref = new SeatRef((int) getRow.invoke(seat), (String) getSeatLetter.invoke(seat));
+                refs.add(ref);
+                classByRow.put(ref.row(), getSeatClass.invoke(seat));
+            }
+            refs.sort(Comparator.comparingInt(SeatRef::row).thenComparing(SeatRef::letter));
+            this.seatCount = refs.size();
+            this.rowClasses = new Object[classByRow.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1];
+            classByRow.forEach((row, value) -> rowClasses[row] = value);
+
+            Random random = new Random(42);
+            for (SeatRef ref : refs) {
+                (random.nextInt(100) < OCCUPANCY_PERCENT ? booked : free).add(ref);
+            }
+        }
+
+        static Version load(String argument) throws Throwable {
+            int separator = argument.indexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("Expected <version>=<classpath>: " + argument);
+            String[] paths = argument.substring(separator + 1).split(File.pathSeparator);
+            URL[] urls = new URL[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                urls[i] = new File(paths[i]).toURI().toURL();
+            }
+            String name = argument.substring(0, separator);
+            return new Version(name, new URLClassLoader(name, urls, VersionComparisonBenchmark.class.getClassLoader()));
+        }
+
+        boolean supports(String method) {
+            return methods.containsKey(method);
+        }
+
+        MethodHandle method(String name) {
+            return methods.get(name);
+        }
+
+        Object newPlan() throws Throwable {
+            return constructor.invokeExact();
+        }
+
+        /** Books the seats chosen for occupancy, if the version can book at all. */
+        void fill(Object plan) throws Throwable {
+            if (supports("bookSeat")) apply("bookSeat", plan, booked, booking);
+        }
+
+        /** Calls a single-seat method on every seat of {@code seats}, with {@code payload} if it takes one. */
+        void apply(String name, Object plan, List<SeatRef> seats, Object payload) throws Throwable {
+            MethodHandle handle = method(name);
+            if (payload == null) {
+                for (SeatRef seat : seats) {
+                    sink.consume((boolean) handle.invokeExact(plan, seat.row(), seat.letter()));
+                }
+            } else {
+                for (SeatRef seat : seats) {
+                    sink.consume((boolean) handle.invokeExact(plan, seat.row(), seat.letter(), payload));
+                }
+            }
+        }
+
+        int query(String name, Object[] plans) throws Throwable {
+            MethodHandle query = method(name);
+            for (Object plan : plans) {
+                for (int i = 0; i < QUERIES_PER_PLAN; i++) {
+                    sink.consume(query.invokeExact(plan));
+                }
+            }
+            return plans.length * QUERIES_PER_PLAN;
+        }
+
+        private static MethodType generic(MethodType type) {
+            for (int i = 0; i < type.parameterCount(); i++) {
+                Class<?> parameter = type.parameterType(i);
+                if (!parameter.isPrimitive() && parameter != String.class) {
+                    type = type.changeParameterType(i, Object.class);
+                }
+            }
+            return type.returnType().isPrimitive() ? type : type.changeReturnType(Object.class);
+        }
+
+        private static Object newRecord(ClassLoader loader, String className, Object... components) throws Throwable {
+            Class<?> type = loader.loadClass(className);
+            Class<?>[] componentTypes = Arrays.stream(type.getRecordComponents())
+                    .map(RecordComponent::getType)
+                    .toArray(Class<?>[]::new);
+            return type.getConstructor(componentTypes).newInstance(components);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object[] constants(ClassLoader loader, String enumName, String[] names) throws ClassNotFoundException {
+            Class<? extends Enum> type = (Class<? extends Enum>) loader.loadClass(enumName);
+            Object[] constants = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                constants[i] = Enum.valueOf(type, names[i]);
+            }
+            return constants;
+        }
+    }
+}
@@ -2,9 +2,12 @@ import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -32,7 +35,7 @@ public class SeatPlan {
             for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
                 for (int seatNum = 0; seatNum < section.getSeatsPerRow(); seatNum++) {
                     char seatLetter = (char) ('A' + seatNum);
-                    seats.add(new Seat(row, String.valueOf(seatLetter), SeatStatus.AVAILABLE, section.getSeatClass(), null));
+                    seats.add(new Seat(row, String.valueOf(seatLetter), SeatStatus.AVAILABLE, section.getSeatClass(), null, null));
                 }
             }
         }
@@ -60,7 +63,8 @@ public class SeatPlan {
                         currentSeat.getSeatLetter(),
                         SeatStatus.RESERVED,
                         currentSeat.getSeatClass(),
-                        booking
+                        booking,
+                        null
                     );
                     seats.set(i, newSeat);
                     return true;
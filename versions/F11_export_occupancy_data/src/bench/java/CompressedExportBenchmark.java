@@ -0,0 +1,92 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Streams the passenger list of a fully booked 100,000-seat plan uncompressed, as gzip at several
+ * levels and as zlib deflate, checks that each file decompresses to the uncompressed export and
+ * reports file size, compression ratio and throughput in uncompressed MB/s.
+ */
+public class CompressedExportBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(CompressedExportBenchmark.class);
+    private static final int ROWS = 10_000;
+    private static final int RUNS = 5;
+    private static final LocalDateTime GENERATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    public static void main(String[] args) throws Exception {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "ECONOMY");
+        template.setProperty("section.1.rows", "1-" + ROWS);
+        template.setProperty("section.1.seats", "ABC|DEFG|HIJ");
+        SeatPlan plan = new SeatPlan(SeatLayout.fromTemplate("benchmark", template), ColumnarSeatStore::new, 1);
+        Random random = new Random(42);
+        for (Seat seat : plan.getSeats()) {
+            plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking(
+                    "Passenger " + random.nextInt(1_000_000), "BN-" + random.nextInt(10_000_000),
+                    random.nextInt(10) == 0 ? "Vegetarian meal" : ""));
+        }
+
+        Path directory = Files.createTempDirectory("compressed-exports");
+        try {
+            byte[] plain = null;
+            List<ExportCompression> compressions = List.of(ExportCompression.NONE,
+                    new ExportCompression(ExportCompression.Codec.GZIP, 1),
+                    new ExportCompression(ExportCompression.Codec.GZIP, 6),
+                    new ExportCompression(ExportCompression.Codec.GZIP, 9),
+                    new ExportCompression(ExportCompression.Codec.DEFLATE, 6));
+            for (ExportCompression compression : compressions) {
+                Path file = compression.fileFor(directory.resolve("passengers.txt"));
+                long elapsed = 0;
+                long uncompressed = 0;
+                for (int run = 0; run < RUNS * 2; run++) {  // the first half warms up
+                    long start = System.nanoTime();
+                    try (ReportWriter out = new ReportWriter(compression.wrap(FileChannel.open(file,
+                            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)))) {
+                        SeatReports.writePassengerList(plan, GENERATED, out);
+                        out.flush();
+                        uncompressed = out.getBytesWritten();
+                    }
+                    if (run >= RUNS) elapsed += System.nanoTime() - start;
+                }
+                long size = Files.size(file);
+                byte[] content = decompress(compression, file);
+                if (plain == null) {
+                    plain = content;
+                } else if (!Arrays.equals(plain, content)) {
+                    throw new IllegalStateException(compression + " export does not decompress to the plain export");
+                }
+                log.info("{}: {} KB ({}% of {} KB), {} ms per export, {} MB/s", compression, size / 1024,
+                        size * 100 / uncompressed, uncompressed / 1024, String.format("%.1f", elapsed / 1e6 / RUNS),
+                        String.format("%.0f", uncompressed * RUNS / (elapsed / 1e9) / (1024 * 1024)));
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static byte[] decompress(ExportCompression compression, Path file) throws IOException {
+        try (InputStream in = switch (compression.codec()) {
+            case NONE -> Files.newInputStream(file);
+            case GZIP -> new GZIPInputStream(Files.newInputStream(file));
+            case DEFLATE -> new InflaterInputStream(Files.newInputStream(file));
+        }) {
+            return in.readAllBytes();
+        }
+    }
+}
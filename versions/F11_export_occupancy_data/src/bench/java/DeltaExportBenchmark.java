@@ -0,0 +1,91 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Changes 1% of the seats of a booked 100,000-seat plan between exports and exports the plan
+ * either in full or as the changes since the previous export, reporting time and file size.
+ */
+public class DeltaExportBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(DeltaExportBenchmark.class);
+    private static final int ROWS = 10_000;
+    private static final int ROUNDS = 20;
+    private static final int CHANGES_PER_ROUND = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "ECONOMY");
+        template.setProperty("section.1.rows", "1-" + ROWS);
+        template.setProperty("section.1.seats", "ABC|DEFG|HIJ");
+        SeatPlan plan = new SeatPlan(SeatLayout.fromTemplate("benchmark", template), ColumnarSeatStore::new, 1);
+        List<Seat> seats = plan.getSeats();
+        for (Seat seat : seats) {
+            plan.bookSeat(seat.getRow(), seat.getSeatLetter(),
+                          new Booking("Passenger " + seat.getRow() + seat.getSeatLetter(), "BN-" + seat.getRow(), ""));
+        }
+
+        Path fullFile = Files.createTempFile("seat-map", ".csv");
+        Path deltaFile = Files.createTempFile("seat-changes", ".csv");
+        try {
+            Random random = new Random(42);
+            long sequence = plan.getChangeSequence();
+            long fullNanos = 0;
+            long deltaNanos = 0;
+            long fullBytes = 0;
+            long deltaBytes = 0;
+            for (int round = 0; round < ROUNDS * 2; round++) {  // the first half warms up
+                for (int i = 0; i < CHANGES_PER_ROUND; i++) {
+                    Seat seat = seats.get(random.nextInt(seats.size()));
+                    if (!plan.cancelSeat(seat.getRow(), seat.getSeatLetter())) {
+                        plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking("Rebooked", "BN-R" + i, ""));
+                    }
+                }
+                long start = System.nanoTime();
+                long size = export(fullFile, out -> SeatExports.writeSeatMap(plan, ExportFormat.CSV.newEncoder(out)));
+                long full = System.nanoTime() - start;
+
+                long[] next = new long[1];
+                long from = sequence;
+                start = System.nanoTime();
+                long changedSize = export(deltaFile, out -> next[0] = SeatExports.writeChanges(plan, from,
+                                                                                        ExportFormat.CSV.newEncoder(out)));
+                long delta = System.nanoTime() - start;
+                sequence = next[0];
+                if (round >= ROUNDS) {
+                    fullNanos += full;
+                    deltaNanos += delta;
+                    fullBytes += size;
+                    deltaBytes += changedSize;
+                }
+            }
+            log.info("Full export: {} ms, {} KB per export", String.format("%.2f", fullNanos / 1e6 / ROUNDS),
+                    fullBytes / ROUNDS / 1024);
+            log.info("Changes since last export ({} changes): {} ms, {} KB per export", CHANGES_PER_ROUND,
+                    String.format("%.2f", deltaNanos / 1e6 / ROUNDS), deltaBytes / ROUNDS / 1024);
+        } finally {
+            Files.deleteIfExists(fullFile);
+            Files.deleteIfExists(deltaFile);
+        }
+    }
+
+    private static long export(Path file, Export export) throws IOException {
+        try (ReportWriter out = new ReportWriter(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            export.write(out);
+            out.flush();
+            return out.getBytesWritten();
+        }
+    }
+
+    private interface Export {
+        void write(ReportWriter out) throws IOException;
+    }
+}
@@ -0,0 +1,102 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Exports the seat map of a fully booked 100,000-seat plan as CSV built with
+ * {@code String.format} and {@code String.join}, as streamed CSV and as streamed JSON Lines, checks
+ * the two CSV files are identical and reports time, throughput and bytes allocated per export.
+ */
+public class ExportFormatBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(ExportFormatBenchmark.class);
+    private static final int ROWS = 10_000;
+    private static final int RUNS = 10;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "ECONOMY");
+        template.setProperty("section.1.rows", "1-" + ROWS);
+        template.setProperty("section.1.seats", "ABC|DEFG|HIJ");
+        SeatPlan plan = new SeatPlan(SeatLayout.fromTemplate("benchmark", template), ColumnarSeatStore::new, 1);
+        for (Seat seat : plan.getSeats()) {
+            plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking(
+                    "Passenger, " + seat.getRow() + seat.getSeatLetter(), "BN-" + seat.getRow(),
+                    seat.getRow() % 7 == 0 ? "Vegetarian \"low salt\" meal" : ""));
+        }
+
+        Path legacy = Files.createTempFile("seat-map-legacy", ".csv");
+        Path csv = Files.createTempFile("seat-map", ".csv");
+        Path jsonLines = Files.createTempFile("seat-map", ".jsonl");
+        try {
+            ExportFormatBenchmark benchmark = new ExportFormatBenchmark();
+            benchmark.measure("String.format CSV", () -> Files.write(legacy,
+                    legacySeatMap(plan).getBytes(StandardCharsets.UTF_8)), legacy);
+            benchmark.measure("streaming CSV", () -> export(plan, ExportFormat.CSV, csv), csv);
+            benchmark.measure("streaming JSON Lines", () -> export(plan, ExportFormat.JSON_LINES, jsonLines), jsonLines);
+            if (!Arrays.equals(Files.readAllBytes(legacy), Files.readAllBytes(csv))) {
+                throw new IllegalStateException("Streamed CSV differs from the String.format one");
+            }
+        } finally {
+            Files.deleteIfExists(legacy);
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(jsonLines);
+        }
+    }
+
+    private static void export(SeatPlan plan, ExportFormat format, Path file) throws IOException {
+        try (ReportWriter out = new ReportWriter(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            SeatExports.writeSeatMap(plan, format.newEncoder(out));
+        }
+    }
+
+    private void measure(String name, Export export, Path file) throws IOException {
+        for (int run = 0; run < RUNS; run++) export.run();  // warm-up
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) export.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long size = Files.size(file);
+        log.info("{}: {} ms per export, {} MB/s, {} KB allocated per export ({} KB file)",
+                name, String.format("%.1f", elapsed / 1e6 / RUNS),
+                String.format("%.0f", size * RUNS / (elapsed / 1e9) / (1024 * 1024)),
+                allocated / RUNS / 1024, size / 1024);
+    }
+
+    // A straightforward CSV export: one String per field and line, collected in a StringBuilder
+    private static String legacySeatMap(SeatPlan plan) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.join(",", SeatExports.SEAT_MAP_COLUMNS)).append("\r\n");
+        for (Seat seat : plan.getSeats()) {
+            Booking booking = seat.getBooking();
+            sb.append(String.format("%d,%s,%s,%s,%b,%s,%s,%s,,,%s\r\n",
+                    seat.getRow(), seat.getSeatLetter(), seat.getSeatClass(), seat.getPosition(),
+                    seat.isExitRow(), seat.getStatus(), quote(booking.passengerName()),
+                    quote(booking.bookingNumber()), quote(booking.specialRequests())));
+        }
+        return sb.toString();
+    }
+
+    private static String quote(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private interface Export {
+        void run() throws IOException;
+    }
+}
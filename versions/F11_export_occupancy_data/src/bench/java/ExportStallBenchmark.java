@@ -0,0 +1,114 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Books and cancels seats on one thread of a 100,000-seat plan while another exports the passenger
+ * list, once from a list of seats collected under the plan-wide lock and once through an
+ * {@link ExportService} working on a {@link SeatPlan#snapshot}. Reports how long the exporting
+ * caller is blocked, the booking latency percentiles and how long a snapshot takes.
+ */
+public class ExportStallBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(ExportStallBenchmark.class);
+    private static final int ROWS = 10_000;
+    private static final int EXPORTS = 10;
+    private static final LocalDateTime GENERATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    public static void main(String[] args) throws Exception {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "ECONOMY");
+        template.setProperty("section.1.rows", "1-" + ROWS);
+        template.setProperty("section.1.seats", "ABC|DEFG|HIJ");
+        SeatPlan plan = new SeatPlan(SeatLayout.fromTemplate("benchmark", template), ColumnarSeatStore::new, 1);
+        List<Seat> seats = plan.getSeats();
+        for (Seat seat : seats) {
+            if (seat.getSeatLetter().compareTo("J") < 0) {
+                plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking(
+                        "Passenger " + seat.getRow() + seat.getSeatLetter(), "BN-" + seat.getRow(), ""));
+            }
+        }
+
+        for (int i = 0; i < EXPORTS; i++) plan.snapshot();  // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < EXPORTS; i++) plan.snapshot();
+        log.info("Snapshot of {} seats: {} ms", seats.size(), String.format("%.1f", (System.nanoTime() - start) / 1e6 / EXPORTS));
+
+        Path file = Files.createTempFile("passengers", ".txt");
+        try (ExportService exports = new ExportService(1, EXPORTS)) {
+            measure("collected under lock", plan, () -> {
+                for (int i = 0; i < EXPORTS; i++) lockedExport(plan, file);
+                return () -> { };
+            });
+            measure("background snapshot", plan, () -> {
+                ExportJob last = null;
+                for (int i = 0; i < EXPORTS; i++) {
+                    last = exports.submit("passenger list", plan, file,
+                            (snapshot, out) -> SeatReports.writePassengerList(snapshot, GENERATED, out));
+                }
+                return last.getCompletion()::join;
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void measure(String name, SeatPlan plan, Exporter exporter) throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        long[] latencies = new long[2_000_000];
+        int[] count = new int[1];
+        Thread booker = new Thread(() -> {
+            Booking booking = new Booking("Late passenger", "BN-LATE", "");
+            for (int i = 0; !done.get() && count[0] < latencies.length; i++) {
+                int row = 1 + i % ROWS;
+                long start = System.nanoTime();
+                plan.bookSeat(row, "J", booking);
+                plan.cancelSeat(row, "J");
+                latencies[count[0]++] = System.nanoTime() - start;
+            }
+        }, "booker");
+        booker.start();
+        long start = System.nanoTime();
+        Runnable completion = exporter.run();
+        long blocked = System.nanoTime() - start;
+        completion.run();
+        long elapsed = System.nanoTime() - start;
+        done.set(true);
+        booker.join();
+
+        long[] sorted = Arrays.copyOf(latencies, count[0]);
+        Arrays.sort(sorted);
+        log.info("{}: {} exports in {} ms, caller blocked {} ms per export; "
+                        + "{} book+cancel pairs, p50 {} us, p99 {} us, p99.9 {} us, max {} us",
+                name, EXPORTS, elapsed / 1_000_000, blocked / EXPORTS / 1_000_000, sorted.length, percentile(sorted, 0.5),
+                percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[sorted.length - 1] / 1000);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * fraction)] / 1000;
+    }
+
+    // Collects the occupied seats while holding every row lock, as the list methods do
+    private static void lockedExport(SeatPlan plan, Path file) throws IOException {
+        List<Seat> occupied = plan.getOccupiedSeats();
+        try (ReportWriter out = new ReportWriter(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            SeatReports.writePassengerListHeader(GENERATED, out);
+            for (Seat seat : occupied) SeatReports.writePassenger(seat, out);
+        }
+    }
+
+    /** Runs the exports and returns what waits for them to finish. */
+    private interface Exporter {
+        Runnable run() throws Exception;
+    }
+}
@@ -0,0 +1,64 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Exports the manifests of 1,000 mostly booked A350 flights with one thread and with one thread
+ * per processor, to a file per flight and to one merged file, checks that the merged files are
+ * identical and reports the throughput of each run.
+ */
+public class FleetExportBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(FleetExportBenchmark.class);
+    private static final int FLIGHTS = 1_000;
+    private static final int RUNS = 5;
+    private static final LocalDateTime GENERATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    public static void main(String[] args) throws Exception {
+        FlightRegistry registry = new FlightRegistry();
+        Random random = new Random(42);
+        for (int flight = 0; flight < FLIGHTS; flight++) {
+            SeatPlan plan = registry.getOrCreate(String.format("XY%04d", flight), SeatLayout.AIRBUS_A350_900);
+            for (Seat seat : plan.getSeats()) {
+                if (random.nextInt(10) < 8) {
+                    plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking("Passenger " + random.nextInt(),
+                            "BN-" + random.nextInt(1_000_000), random.nextInt(20) == 0 ? "Wheelchair" : ""));
+                }
+            }
+        }
+
+        Path directory = Files.createTempDirectory("manifests");
+        try {
+            byte[] sequential = null;
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int parallelism : new int[] {1, Math.max(processors, 4)}) {
+                try (FleetExporter exporter = new FleetExporter(registry, parallelism)) {
+                    Path merged = directory.resolve("merged-" + parallelism + ".txt");
+                    FleetExporter.Result perFlight = null;
+                    FleetExporter.Result mergedResult = null;
+                    for (int run = 0; run < RUNS; run++) {  // the first run warms up
+                        perFlight = exporter.exportPerFlight(directory.resolve("flights"), GENERATED);
+                        mergedResult = exporter.exportMerged(merged, GENERATED);
+                    }
+                    log.info("{} threads, file per flight: {}", parallelism, perFlight);
+                    log.info("{} threads, merged file: {}", parallelism, mergedResult);
+                    byte[] content = Files.readAllBytes(merged);
+                    if (sequential == null) {
+                        sequential = content;
+                    } else if (!Arrays.equals(sequential, content)) {
+                        throw new IllegalStateException("Merged manifests differ between thread counts");
+                    }
+                }
+            }
+        } finally {
+            try (var files = Files.walk(directory)) {
+                for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.delete(file);
+            }
+        }
+        registry.close();
+    }
+}
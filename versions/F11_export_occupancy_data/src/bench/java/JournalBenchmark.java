@@ -0,0 +1,97 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures bookings per second with a {@link SeatJournal} attached under each sync policy.
+ * Threads book a random seat and cancel it again for a fixed time; every booking and every
+ * cancellation is one journal record. Also reports how many records each flush carried, which is
+ * what group commit trades latency for. Pass a directory as first argument to put the journals on
+ * a specific disk; the default is the system temp directory.
+ */
+public class JournalBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(JournalBenchmark.class);
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+    private static final Duration RUN_TIME = Duration.ofSeconds(3);
+
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length > 0 ? Path.of(args[0]) : Path.of(System.getProperty("java.io.tmpdir"));
+        measure(directory, "no journal", null, Duration.ZERO);
+        measure(directory, "no sync", SeatJournal.SyncPolicy.NO_SYNC, Duration.ZERO);
+        measure(directory, "fsync per record", SeatJournal.SyncPolicy.EVERY_RECORD, Duration.ZERO);
+        measure(directory, "group commit", SeatJournal.SyncPolicy.GROUP, Duration.ZERO);
+        measure(directory, "group commit, 200us delay", SeatJournal.SyncPolicy.GROUP, Duration.ofNanos(200_000));
+    }
+
+    private static void measure(Path directory, String name, SeatJournal.SyncPolicy policy, Duration delay)
+            throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            Path file = Files.createTempFile(directory, "seat-journal", ".bin");
+            try {
+                SeatPlan plan = new SeatPlan(ColumnarSeatStore::new, 1);
+                SeatJournal journal = policy == null ? null : SeatJournal.open(file, policy, delay);
+                plan.setJournal(journal);
+                long bookings;
+                try {
+                    bookings = run(plan, threads);
+                } finally {
+                    if (journal != null) journal.close();
+                }
+                long records = 2 * bookings;
+                long flushes = journal == null ? 0 : Math.max(1, journal.getFlushCount());
+                log.info("{} {} threads: {} bookings/s, {} records per flush, journal {} KB",
+                        name, String.format("%2d", threads),
+                        String.format("%.0f", bookings / (RUN_TIME.toNanos() / 1e9)),
+                        journal == null ? "-" : String.format("%.1f", (double) records / flushes),
+                        Files.size(file) / 1024);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /** @return number of successful bookings */
+    private static long run(SeatPlan plan, int threads) throws Exception {
+        List<Seat> seats = plan.getSeats();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    Booking booking = new Booking("Passenger " + seed, "BN-" + seed, "");
+                    long booked = 0;
+                    start.await();
+                    long deadline = System.nanoTime() + RUN_TIME.toNanos();
+                    while (System.nanoTime() < deadline) {
+                        Seat seat = seats.get(random.nextInt(seats.size()));
+                        if (plan.bookSeat(seat.getRow(), seat.getSeatLetter(), booking)) {
+                            booked++;
+                            plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+                        }
+                    }
+                    return booked;
+                }));
+            }
+            start.countDown();
+
+            long total = 0;
+            for (Future<Long> future : futures) total += future.get();
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opens the seat maps of a fleet of half-booked flights from memory-mapped files and from
+ * snapshots, then compares availability searches and occupancy statistics on a mapped and an
+ * in-memory columnar plan.
+ */
+public class MappedSeatMapBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(MappedSeatMapBenchmark.class);
+    private static final int FLIGHTS = 500;
+    private static final int QUERIES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        SeatLayout layout = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+        Path directory = Files.createTempDirectory("seat-maps");
+        try {
+            for (int flight = 0; flight < FLIGHTS; flight++) {
+                try (SeatPlan plan = new SeatPlan(layout, MappedSeatStore.factory(seatMap(directory, flight)), 1)) {
+                    book(plan, new Random(flight));
+                    SeatSnapshot.write(plan, snapshot(directory, flight));
+                }
+            }
+
+            long start = System.nanoTime();
+            List<SeatPlan> plans = new ArrayList<>();
+            for (int flight = 0; flight < FLIGHTS; flight++) {
+                plans.add(new SeatPlan(layout, MappedSeatStore.factory(seatMap(directory, flight)), 1));
+            }
+            long mappedOpen = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int flight = 0; flight < FLIGHTS; flight++) {
+                SeatSnapshot.recover(layout, l -> new SeatPlan(l, ColumnarSeatStore::new, 1),
+                                     snapshot(directory, flight), directory.resolve("no-journal"));
+            }
+            long snapshotOpen = System.nanoTime() - start;
+            log.info("Opened {} flights: mapped {} ms, from snapshots {} ms",
+                    FLIGHTS, mappedOpen / 1_000_000, snapshotOpen / 1_000_000);
+
+            SeatPlan columnar = SeatSnapshot.recover(layout, l -> new SeatPlan(l, ColumnarSeatStore::new, 1),
+                                                     snapshot(directory, 0), directory.resolve("no-journal"));
+            query("mapped", plans.get(0));
+            query("columnar", columnar);
+            for (SeatPlan plan : plans) plan.close();
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void book(SeatPlan plan, Random random) {
+        for (Seat seat : plan.getSeats()) {
+            if (random.nextBoolean()) {
+                plan.bookSeat(seat.getRow(), seat.getSeatLetter(),
+                              new Booking("Passenger " + random.nextInt(), "BN-" + random.nextInt(), ""));
+            }
+        }
+    }
+
+    private static void query(String name, SeatPlan plan) {
+        plan.setVerifyOccupancyCounters(true);
+        for (int round = 0; round < 2; round++) {  // first round warms up
+            long found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                found += plan.findAvailableSeats(SeatClass.ECONOMY, SeatPosition.WINDOW, false).size();
+                found += plan.calculateOccupancyStats().get(SeatClass.ECONOMY).available();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round == 1) {
+                log.info("{}: {} ns per search plus verified occupancy stats ({} seats found)",
+                        name, elapsed / QUERIES, found);
+            }
+        }
+    }
+
+    private static Path seatMap(Path directory, int flight) {
+        return directory.resolve("flight-" + flight + ".seats");
+    }
+
+    private static Path snapshot(Path directory, int flight) {
+        return directory.resolve("flight-" + flight + ".snapshot");
+    }
+}
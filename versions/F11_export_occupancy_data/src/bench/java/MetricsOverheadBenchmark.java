@@ -0,0 +1,51 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Books and cancels seats and looks them up on a row-striped plan, first without metrics, then
+ * with {@link SeatPlanMetrics} attached, and reports the time and bytes allocated per operation
+ * for both, followed by the recorded summary.
+ */
+public class MetricsOverheadBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(MetricsOverheadBenchmark.class);
+    private static final int ROUNDS = 200;
+    private static final Booking BOOKING = new Booking("Passenger", "BN-1", "");
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        MetricsOverheadBenchmark benchmark = new MetricsOverheadBenchmark();
+        SeatPlan plan = new SeatPlan(SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900), ColumnarSeatStore::new, 1);
+        List<Seat> seats = plan.getSeats();
+        SeatPlanMetrics metrics = new SeatPlanMetrics();
+        for (int pass = 0; pass < 2; pass++) {  // the first pass warms up
+            plan.setMetrics(null);
+            benchmark.measure("without metrics", plan, seats, pass == 1);
+            plan.setMetrics(metrics);
+            benchmark.measure("with metrics", plan, seats, pass == 1);
+        }
+        metrics.logSummary();
+    }
+
+    private void measure(String name, SeatPlan plan, List<Seat> seats, boolean report) {
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Seat seat : seats) {
+                plan.bookSeat(seat.getRow(), seat.getSeatLetter(), BOOKING);
+                plan.getSeat(seat.getRow(), seat.getSeatLetter());
+                plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long operations = 3L * ROUNDS * seats.size();
+        if (report) {
+            log.info("{}: {} ns per operation, {} bytes allocated per operation", name,
+                    String.format("%.1f", (double) elapsed / operations), allocated / operations);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Measures startup time of a plan with a long history: full journal replay versus loading a
+ * snapshot and replaying only the journal tail written after it. The history is a random mix of
+ * bookings, reservations, confirmations, cancellations, swaps and blocks; the snapshot is taken
+ * {@value #TAIL_OPERATIONS} operations before the end. Both recoveries must produce the seats the
+ * plan had before shutdown.
+ */
+public class RecoveryBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(RecoveryBenchmark.class);
+    private static final int[] HISTORY_SIZES = {100_000, 500_000, 1_000_000};
+    private static final int TAIL_OPERATIONS = 1_000;
+    private static final int RUNS = 5;
+    private static final Function<SeatLayout, SeatPlan> PLAN_FACTORY = layout -> new SeatPlan(layout, ColumnarSeatStore::new, 1);
+
+    public static void main(String[] args) throws Exception {
+        SeatLayout layout = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+        Path directory = Files.createTempDirectory("seat-recovery");
+        try {
+            for (int history : HISTORY_SIZES) {
+                measure(layout, directory, history);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void measure(SeatLayout layout, Path directory, int history) throws Exception {
+        Path journalFile = directory.resolve("journal-" + history + ".bin");
+        Path snapshotFile = directory.resolve("snapshot-" + history + ".bin");
+        Path missingSnapshot = directory.resolve("none.bin");
+
+        SeatPlan plan = PLAN_FACTORY.apply(layout);
+        try (SeatJournal journal = SeatJournal.open(journalFile, SeatJournal.SyncPolicy.NO_SYNC)) {
+            plan.setJournal(journal);
+            Random random = new Random(history);
+            List<Seat> seats = plan.getSeats();
+            for (int i = 0; i < history; i++) {
+                if (i == history - TAIL_OPERATIONS) {
+                    SeatSnapshot.write(plan, snapshotFile);
+                }
+                mutate(plan, seats, random, i);
+            }
+        }
+        List<Seat> expected = plan.getSeats();
+
+        long[] full = new long[RUNS];
+        long[] fromSnapshot = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            check(expected, SeatSnapshot.recover(layout, PLAN_FACTORY, missingSnapshot, journalFile));
+            full[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            check(expected, SeatSnapshot.recover(layout, PLAN_FACTORY, snapshotFile, journalFile));
+            fromSnapshot[run] = System.nanoTime() - start;
+        }
+        log.info("{} operations, journal {} KB: full replay {} ms, snapshot + {} records {} ms",
+                history, Files.size(journalFile) / 1024, median(full) / 1_000_000,
+                TAIL_OPERATIONS, String.format("%.2f", median(fromSnapshot) / 1e6));
+    }
+
+    private static void mutate(SeatPlan plan, List<Seat> seats, Random random, int i) {
+        Seat seat = seats.get(random.nextInt(seats.size()));
+        int row = seat.getRow();
+        String letter = seat.getSeatLetter();
+        switch (random.nextInt(6)) {
+            case 0 -> plan.bookSeat(row, letter, new Booking("Passenger " + i, "BN-" + i, ""));
+            case 1 -> plan.reserveSeat(row, letter, new Reservation("Passenger " + i, "RS-" + i,
+                    Instant.now().plus(1, ChronoUnit.DAYS), ""));
+            case 2 -> plan.confirmReservation(row, letter, "BN-" + i);
+            case 3 -> plan.cancelSeat(row, letter);
+            case 4 -> {
+                Seat other = seats.get(random.nextInt(seats.size()));
+                plan.swapSeats(row, letter, other.getRow(), other.getSeatLetter());
+            }
+            default -> {
+                if (!plan.releaseSeat(row, letter) && random.nextInt(10) == 0) plan.blockSeat(row, letter);
+            }
+        }
+    }
+
+    private static void check(List<Seat> expected, SeatPlan recovered) {
+        if (!expected.equals(recovered.getSeats())) {
+            throw new IllegalStateException("Recovered plan differs from the plan before shutdown");
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,100 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Exports the passenger list of a fully booked 100,000-seat plan the old way (one
+ * {@code String.format} per line into a {@code StringBuilder}, then {@code getBytes} and
+ * {@code Files.write}) and through {@link SeatReports}, checks both files are identical and reports
+ * time, throughput and bytes allocated per export.
+ */
+public class ReportExportBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(ReportExportBenchmark.class);
+    private static final int ROWS = 10_000;
+    private static final int RUNS = 10;
+    private static final LocalDateTime GENERATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "ECONOMY");
+        template.setProperty("section.1.rows", "1-" + ROWS);
+        template.setProperty("section.1.seats", "ABC|DEFG|HIJ");
+        SeatPlan plan = new SeatPlan(SeatLayout.fromTemplate("benchmark", template), ColumnarSeatStore::new, 1);
+        for (Seat seat : plan.getSeats()) {
+            plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking(
+                    "Passenger " + seat.getRow() + seat.getSeatLetter(), "BN-" + seat.getRow(),
+                    seat.getRow() % 7 == 0 ? "Vegetarian meal" : ""));
+        }
+
+        Path legacy = Files.createTempFile("passengers-legacy", ".txt");
+        Path streamed = Files.createTempFile("passengers-streamed", ".txt");
+        try {
+            ReportExportBenchmark benchmark = new ReportExportBenchmark();
+            benchmark.measure("String.format", () -> Files.write(legacy,
+                    legacyPassengerList(plan).getBytes(StandardCharsets.UTF_8)), legacy);
+            benchmark.measure("streaming", () -> {
+                try (ReportWriter out = new ReportWriter(FileChannel.open(streamed, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING))) {
+                    SeatReports.writePassengerList(plan, GENERATED, out);
+                }
+            }, streamed);
+            if (!Arrays.equals(Files.readAllBytes(legacy), Files.readAllBytes(streamed))) {
+                throw new IllegalStateException("Streamed passenger list differs from the String.format one");
+            }
+        } finally {
+            Files.deleteIfExists(legacy);
+            Files.deleteIfExists(streamed);
+        }
+    }
+
+    private void measure(String name, Export export, Path file) throws IOException {
+        for (int run = 0; run < RUNS; run++) export.run();  // warm-up
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) export.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long size = Files.size(file);
+        log.info("{}: {} ms per export, {} MB/s, {} KB allocated per export ({} KB file)",
+                name, String.format("%.1f", elapsed / 1e6 / RUNS),
+                String.format("%.0f", size * RUNS / (elapsed / 1e9) / (1024 * 1024)),
+                allocated / RUNS / 1024, size / 1024);
+    }
+
+    // The export as FlightSeatManagerApp built it before SeatReports
+    private static String legacyPassengerList(SeatPlan plan) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Flight Passenger List\n");
+        sb.append("Generated: ").append(GENERATED).append("\n\n");
+        sb.append(String.format(Locale.ROOT, "%-6s %-8s %-20s %-15s %s\n",
+                "Seat", "Class", "Passenger Name", "Ticket Number", "Special Requests"));
+        sb.append("──────────────────────────────────────────────────────────────\n");
+        plan.getOccupiedSeats().forEach(seat -> {
+            Booking booking = seat.getBooking();
+            sb.append(String.format(Locale.ROOT, "%-6s %-8s %-20s %-15s %s\n",
+                    seat.getRow() + seat.getSeatLetter(),
+                    seat.getSeatClass(),
+                    booking.passengerName(),
+                    booking.bookingNumber(),
+                    booking.specialRequests().isBlank() ? "-" : booking.specialRequests()));
+        });
+        return sb.toString();
+    }
+
+    private interface Export {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,94 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Measures per-operation latency when 1 to 64 threads fight over the same two economy rows.
+ * Every thread loops over book/cancel/reserve/block/release on random seats of rows 17-18 and
+ * records each call's duration; the run reports throughput and p50/p99/p99.9/max latency for a
+ * plan-wide lock, per-row locks and {@link LockFreeSeatPlan}.
+ */
+public class SeatContentionBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SeatContentionBenchmark.class);
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+    private static final String[] LETTERS = {"A", "B", "C", "D", "E", "F", "G", "H", "I"};
+
+    public static void main(String[] args) throws Exception {
+        measure("global lock", () -> new SeatPlan(ObjectSeatStore::new));
+        measure("row locks", () -> new SeatPlan(ObjectSeatStore::new, 1));
+        measure("lock-free", LockFreeSeatPlan::new);
+    }
+
+    private static void measure(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            run(planFactory.get(), threads);  // warm-up
+            SeatPlan plan = planFactory.get();
+            long start = System.nanoTime();
+            long[] latencies = run(plan, threads);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            log.info("{} {} threads: {} ops/s, p50 {} ns, p99 {} ns, p99.9 {} ns, max {} ns",
+                    name, String.format("%2d", threads),
+                    String.format("%.0f", latencies.length * 1e9 / elapsed),
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1]);
+        }
+    }
+
+    private static long[] run(SeatPlan plan, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    Booking booking = new Booking("Passenger " + seed, "BN-" + seed, "");
+                    Reservation reservation = new Reservation("Passenger " + seed, "RS-" + seed, null, "");
+                    long[] latencies = new long[OPERATIONS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < latencies.length; i++) {
+                        int row = 17 + random.nextInt(2);
+                        String letter = LETTERS[random.nextInt(LETTERS.length)];
+                        int operation = random.nextInt(5);
+                        long begin = System.nanoTime();
+                        switch (operation) {
+                            case 0 -> plan.bookSeat(row, letter, booking);
+                            case 1 -> plan.cancelSeat(row, letter);
+                            case 2 -> plan.reserveSeat(row, letter, reservation);
+                            case 3 -> plan.blockSeat(row, letter);
+                            default -> plan.releaseSeat(row, letter);
+                        }
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[threads * OPERATIONS_PER_THREAD];
+            for (int t = 0; t < threads; t++) {
+                System.arraycopy(futures.get(t).get(), 0, all, t * OPERATIONS_PER_THREAD, OPERATIONS_PER_THREAD);
+            }
+            return all;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
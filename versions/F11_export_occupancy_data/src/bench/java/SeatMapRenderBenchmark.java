@@ -0,0 +1,120 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Renders the seat map of a 40-row and an 80-row aircraft the way the menu used to (per row, a
+ * stream over every seat filtered to the row and sorted by letter, joined into a string per line)
+ * and with {@link SeatMapRenderer}, rendering every row or only the rows whose version changed,
+ * with no seats or two seats changed between renders. Checks all produce the same text and reports
+ * time and bytes allocated per render.
+ */
+public class SeatMapRenderBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SeatMapRenderBenchmark.class);
+    private static final int RENDERS = 2_000;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        SeatMapRenderBenchmark benchmark = new SeatMapRenderBenchmark();
+        benchmark.run(SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900));
+        benchmark.run(SeatLayout.fromTemplate("80-row", eightyRowTemplate()));
+    }
+
+    private void run(SeatLayout layout) {
+        SeatPlan plan = new SeatPlan(layout, ColumnarSeatStore::new, 1);
+        Random random = new Random(42);
+        for (Seat seat : plan.getSeats()) {
+            switch (random.nextInt(4)) {
+                case 0 -> plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking("Passenger", "BN-1", ""));
+                case 1 -> plan.blockSeat(seat.getRow(), seat.getSeatLetter());
+                default -> { }
+            }
+        }
+        SeatMapRenderer renderer = new SeatMapRenderer();
+        String legacy = legacyRender(plan);
+        if (!legacy.equals(renderer.render(plan).toString())) {
+            throw new IllegalStateException("Rendered seat maps differ for " + layout.getAircraftType());
+        }
+        String name = layout.getAircraftType() + " (" + layout.getMaxRow() + " rows, " + layout.getSeatCount() + " seats)";
+        measure(name + " per-row stream and sort", () -> legacyRender(plan));
+        measure(name + " single pass, every row", () -> new SeatMapRenderer().render(plan));
+        measure(name + " single pass, row cache", () -> renderer.render(plan));
+
+        List<Seat> seats = plan.getSeats();
+        Runnable changeTwoSeats = () -> {
+            for (int i = 0; i < 2; i++) {
+                Seat seat = seats.get(random.nextInt(seats.size()));
+                if (!plan.cancelSeat(seat.getRow(), seat.getSeatLetter())) {
+                    plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking("Passenger", "BN-2", ""));
+                }
+            }
+        };
+        measure(name + " two seats changed, every row", () -> {
+            changeTwoSeats.run();
+            return new SeatMapRenderer().render(plan);
+        });
+        measure(name + " two seats changed, row cache", () -> {
+            changeTwoSeats.run();
+            return renderer.render(plan);
+        });
+        if (!legacyRender(plan).equals(renderer.render(plan).toString())) {
+            throw new IllegalStateException("Cached seat map is stale for " + layout.getAircraftType());
+        }
+    }
+
+    private void measure(String name, Supplier<CharSequence> render) {
+        long length = 0;
+        for (int i = 0; i < RENDERS; i++) length += render.get().length();  // warm-up
+        length = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < RENDERS; i++) length += render.get().length();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        log.info("{}: {} us per render, {} bytes allocated per render ({} chars)", name,
+                String.format("%.1f", elapsed / 1e3 / RENDERS), allocated / RENDERS, length / RENDERS);
+    }
+
+    // displaySeatAvailability before SeatMapRenderer, with the log lines joined by newlines
+    private static String legacyRender(SeatPlan plan) {
+        StringBuilder text = new StringBuilder("Seat Availability:");
+        for (SeatSection section : plan.getSections()) {
+            text.append("\n\n=== ").append(section.getSeatClass()).append(" Class ===");
+            for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
+                int currentRow = row;
+                List<Seat> seatsInRow = plan.getSeats().stream()
+                        .filter(seat -> seat.getSeatClass() == section.getSeatClass() && seat.getRow() == currentRow)
+                        .sorted(Comparator.comparing(Seat::getSeatLetter))
+                        .collect(Collectors.toList());
+                String seatDisplay = seatsInRow.stream()
+                        .map(seat -> SeatMapRenderer.symbol(seat.getStatus()))
+                        .collect(Collectors.joining(" "));
+                text.append('\n').append(String.format("Row %2d: %s", row, seatDisplay));
+            }
+        }
+        return text.toString();
+    }
+
+    private static Properties eightyRowTemplate() {
+        Properties template = new Properties();
+        template.setProperty("section.1.class", "BUSINESS");
+        template.setProperty("section.1.rows", "1-16");
+        template.setProperty("section.1.seats", "A|DG|K");
+        template.setProperty("section.2.class", "PREMIUM_ECONOMY");
+        template.setProperty("section.2.rows", "17-28");
+        template.setProperty("section.2.seats", "AC|DEF|HK");
+        template.setProperty("section.3.class", "ECONOMY");
+        template.setProperty("section.3.rows", "29-80");
+        template.setProperty("section.3.seats", "ABC|DEFG|HJK");
+        template.setProperty("section.3.exitRows", "29,45");
+        return template;
+    }
+}
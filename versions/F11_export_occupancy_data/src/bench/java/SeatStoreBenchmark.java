@@ -0,0 +1,82 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Compares throughput and allocation of the {@link SeatStore} engines under a booking storm:
+ * every round books, reserves, confirms, swaps and cancels seats all over the plan.
+ * Payload records are created up front so only the store's own allocations are measured.
+ */
+public class SeatStoreBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SeatStoreBenchmark.class);
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 10_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Booking booking = new Booking("Benchmark Passenger", "BN-1", "");
+    private final Reservation reservation =
+            new Reservation("Benchmark Passenger", "RS-1", Instant.MAX, "");
+
+    public static void main(String[] args) {
+        SeatStoreBenchmark benchmark = new SeatStoreBenchmark();
+        benchmark.run("objects", ObjectSeatStore::new);
+        benchmark.run("columnar", ColumnarSeatStore::new);
+    }
+
+    private void run(String name, Function<SeatLayout, SeatStore> storeFactory) {
+        SeatPlan plan = new SeatPlan(storeFactory);
+        int[][] seats = plan.getSeats().stream()
+                .map(seat -> new int[]{seat.getRow(), seat.getSeatLetter().charAt(0)})
+                .toArray(int[][]::new);
+        String[] letters = new String[26];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = String.valueOf((char) ('A' + i));
+        }
+
+        Random random = new Random(42);
+        int[] order = random.ints(seats.length * 4L, 0, seats.length).toArray();
+
+        long ops = runRounds(plan, seats, letters, order, WARMUP_ROUNDS);
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        ops = runRounds(plan, seats, letters, order, MEASURED_ROUNDS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        log.info("{}: {} ops in {} ms, {} ops/s, {} bytes/op, {} MB/s allocated",
+                name, ops, elapsed / 1_000_000,
+                String.format("%.0f", ops * 1e9 / elapsed),
+                String.format("%.1f", (double) allocated / ops),
+                String.format("%.1f", allocated * 1e9 / elapsed / (1024 * 1024)));
+    }
+
+    private long runRounds(SeatPlan plan, int[][] seats, String[] letters, int[] order, int rounds) {
+        long ops = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i + 3 < order.length; i += 4) {
+                int[] a = seats[order[i]];
+                int[] b = seats[order[i + 1]];
+                int[] c = seats[order[i + 2]];
+                String letterA = letters[a[1] - 'A'];
+                String letterB = letters[b[1] - 'A'];
+                String letterC = letters[c[1] - 'A'];
+
+                plan.bookSeat(a[0], letterA, booking);
+                plan.bookSeat(b[0], letterB, booking);
+                plan.swapSeats(a[0], letterA, b[0], letterB);
+                plan.reserveSeat(c[0], letterC, reservation);
+                plan.confirmReservation(c[0], letterC, "BN-2");
+                plan.cancelSeat(a[0], letterA);
+                plan.cancelSeat(b[0], letterB);
+                plan.cancelSeat(c[0], letterC);
+                ops += 8;
+            }
+        }
+        return ops;
+    }
+}
@@ -0,0 +1,163 @@
+import seatplan.jmh.SeatPlanOperations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * The {@link SeatPlan} side of {@code seatplan.jmh.SeatPlanBenchmark}: a plan on the configuration
+ * {@link FlightRegistry} uses and the operations the benchmark measures on it.
+ * <p>
+ * Every call leaves the plan as it found it, so the occupancy stays at its parameter for the whole
+ * run: the mutating operations undo themselves before returning and their score includes that
+ * second operation ({@code bookSeat} is a booking plus a cancellation, {@code confirmReservation}
+ * a reservation, its confirmation and a cancellation). Seats are taken round robin from the free
+ * or occupied seats of the filled plan. With no occupied seats, {@code cancelSeat} and
+ * {@code swapSeats} measure the rejected operation.
+ */
+public class SeatPlanFixture implements SeatPlanOperations {
+    private static final Booking BOOKING = new Booking("Benchmark Passenger", "BN-0", "");
+    private static final Reservation HOLD = new Reservation("Benchmark Passenger", "RES-0", null, "");
+    private static final Reservation EXPIRED = new Reservation("Benchmark Passenger", "RES-1", Instant.EPOCH, "");
+
+    private int rows;
+    private SeatPlan plan;
+    private Seat[] freeSeats;
+    private Seat[] occupiedSeats;
+    private SeatClass[] rowClasses;
+    private int bookedSeats;
+    private int nextFree;
+    private int nextOccupied;
+    private int nextRow;
+
+    @Override
+    public void setUp(int rows, int occupancy) throws IOException {
+        this.rows = rows;
+        plan = new SeatPlan(layout(rows), ColumnarSeatStore::new, 1);
+        List<Seat> free = new ArrayList<>();
+        List<Seat> occupied = new ArrayList<>();
+        Random random = new Random(42);
+        for (Seat seat : plan.getSeats()) {
+            if (random.nextInt(100) < occupancy) {
+                plan.bookSeat(seat.getRow(), seat.getSeatLetter(), BOOKING);
+                occupied.add(seat);
+            } else {
+                free.add(seat);
+            }
+        }
+        freeSeats = free.toArray(new Seat[0]);
+        occupiedSeats = occupied.isEmpty() ? freeSeats : occupied.toArray(new Seat[0]);
+        bookedSeats = occupied.size();
+        rowClasses = new SeatClass[rows + 1];
+        for (int row = 1; row <= rows; row++) {
+            rowClasses[row] = plan.getLayout().getSeatClass(plan.getLayout().getRowOffset(row));
+        }
+    }
+
+    @Override
+    public void checkOccupancy() {
+        long booked = plan.calculateOccupancyStats().values().stream().mapToLong(ClassStats::occupied).sum();
+        if (booked != bookedSeats) {
+            throw new IllegalStateException("Benchmark changed the occupancy: " + booked + " seats booked");
+        }
+    }
+
+    @Override
+    public boolean bookSeat() {
+        Seat seat = nextFreeSeat();
+        boolean booked = plan.bookSeat(seat.getRow(), seat.getSeatLetter(), BOOKING);
+        plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+        return booked;
+    }
+
+    @Override
+    public boolean reserveSeat() {
+        Seat seat = nextFreeSeat();
+        boolean reserved = plan.reserveSeat(seat.getRow(), seat.getSeatLetter(), HOLD);
+        plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+        return reserved;
+    }
+
+    @Override
+    public boolean confirmReservation() {
+        Seat seat = nextFreeSeat();
+        plan.reserveSeat(seat.getRow(), seat.getSeatLetter(), HOLD);
+        boolean confirmed = plan.confirmReservation(seat.getRow(), seat.getSeatLetter(), BOOKING.bookingNumber());
+        plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+        return confirmed;
+    }
+
+    @Override
+    public boolean cancelSeat() {
+        Seat seat = nextOccupiedSeat();
+        boolean cancelled = plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+        if (cancelled) plan.bookSeat(seat.getRow(), seat.getSeatLetter(), BOOKING);
+        return cancelled;
+    }
+
+    /** Swaps two booked seats; the occupancy is unchanged, so nothing has to be undone. */
+    @Override
+    public boolean swapSeats() {
+        Seat first = nextOccupiedSeat();
+        Seat second = nextOccupiedSeat();
+        return plan.swapSeats(first.getRow(), first.getSeatLetter(), second.getRow(), second.getSeatLetter());
+    }
+
+    @Override
+    public List<Seat> findAvailableSeats() {
+        return plan.findAvailableSeats(SeatClass.ECONOMY, SeatPosition.WINDOW, false);
+    }
+
+    @Override
+    public Map<SeatClass, ClassStats> calculateOccupancyStats() {
+        return plan.calculateOccupancyStats();
+    }
+
+    @Override
+    public List<Seat> getSeatsByClassAndRow() {
+        if (++nextRow > rows) nextRow = 1;
+        return plan.getSeatsByClassAndRow(rowClasses[nextRow], nextRow);
+    }
+
+    /** Sweep with one reservation due, which it expires; the reservation is placed first. */
+    @Override
+    public boolean releaseExpiredReservations() {
+        Seat seat = nextFreeSeat();
+        boolean reserved = plan.reserveSeat(seat.getRow(), seat.getSeatLetter(), EXPIRED);
+        plan.releaseExpiredReservations();
+        return reserved;
+    }
+
+    /** Sweep with nothing due, the common case for the expiry scheduler. */
+    @Override
+    public void releaseExpiredReservationsIdle() {
+        plan.releaseExpiredReservations();
+    }
+
+    private Seat nextFreeSeat() {
+        if (nextFree == freeSeats.length) nextFree = 0;
+        return freeSeats[nextFree++];
+    }
+
+    private Seat nextOccupiedSeat() {
+        if (nextOccupied == occupiedSeats.length) nextOccupied = 0;
+        return occupiedSeats[nextOccupied++];
+    }
+
+    private static SeatLayout layout(int rows) throws IOException {
+        if (rows == 40) return SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+        Properties template = new Properties();
+        try (InputStream in = SeatPlanFixture.class.getResourceAsStream("/layouts/A350-900.properties")) {
+            template.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        template.setProperty("section.3.rows", "17-" + rows);
+        return SeatLayout.fromTemplate("A350-900 with " + rows + " rows", template);
+    }
+}
@@ -0,0 +1,121 @@
+package seatplan.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the single-flight seat plan operations on the plan configuration the flight
+ * registry uses (columnar store, one lock per row), for aircraft of different sizes filled to
+ * different occupancy levels. {@link #main} runs them with the GC profiler, which adds the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}) to every result.
+ * <p>
+ * The operations themselves are in {@code SeatPlanFixture}, see {@link SeatPlanOperations}. The
+ * call site always sees that one implementation, so the JIT inlines it and the interface costs
+ * nothing in the scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Expired reservations are logged at INFO, which would otherwise dominate the expiry sweep
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class SeatPlanBenchmark {
+
+    /** Aircraft length in rows: 40 is the bundled A350-900, longer ones extend its economy cabin. */
+    @Param({"40", "400", "4000"})
+    private int rows;
+
+    /** Percentage of seats booked before measuring. */
+    @Param({"0", "50", "90"})
+    private int occupancy;
+
+    private SeatPlanOperations plan;
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SeatPlanBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        plan = (SeatPlanOperations) Class.forName("SeatPlanFixture").getDeclaredConstructor().newInstance();
+        plan.setUp(rows, occupancy);
+    }
+
+    @TearDown
+    public void checkOccupancy() {
+        plan.checkOccupancy();
+    }
+
+    @Benchmark
+    public boolean bookSeat() {
+        return plan.bookSeat();
+    }
+
+    @Benchmark
+    public boolean reserveSeat() {
+        return plan.reserveSeat();
+    }
+
+    @Benchmark
+    public boolean confirmReservation() {
+        return plan.confirmReservation();
+    }
+
+    @Benchmark
+    public boolean cancelSeat() {
+        return plan.cancelSeat();
+    }
+
+    @Benchmark
+    public boolean swapSeats() {
+        return plan.swapSeats();
+    }
+
+    @Benchmark
+    public Object findAvailableSeats() {
+        return plan.findAvailableSeats();
+    }
+
+    @Benchmark
+    public Object calculateOccupancyStats() {
+        return plan.calculateOccupancyStats();
+    }
+
+    @Benchmark
+    public Object getSeatsByClassAndRow() {
+        return plan.getSeatsByClassAndRow();
+    }
+
+    @Benchmark
+    public boolean releaseExpiredReservations() {
+        return plan.releaseExpiredReservations();
+    }
+
+    @Benchmark
+    public void releaseExpiredReservationsIdle() {
+        plan.releaseExpiredReservationsIdle();
+    }
+}
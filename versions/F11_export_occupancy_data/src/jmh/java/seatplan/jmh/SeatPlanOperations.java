@@ -0,0 +1,35 @@
+package seatplan.jmh;
+
+/**
+ * The seat plan operations {@link SeatPlanBenchmark} measures. JMH only accepts benchmarks outside
+ * the default package, which cannot refer to the seat plan classes, so the default-package
+ * {@code SeatPlanFixture} implements this and the benchmark calls it through this interface.
+ */
+public interface SeatPlanOperations {
+
+    /** Builds a plan of {@code rows} rows with {@code occupancy} percent of its seats booked. */
+    void setUp(int rows, int occupancy) throws Exception;
+
+    /** @throws IllegalStateException if the benchmark changed the number of booked seats */
+    void checkOccupancy();
+
+    boolean bookSeat();
+
+    boolean reserveSeat();
+
+    boolean confirmReservation();
+
+    boolean cancelSeat();
+
+    boolean swapSeats();
+
+    Object findAvailableSeats();
+
+    Object calculateOccupancyStats();
+
+    Object getSeatsByClassAndRow();
+
+    boolean releaseExpiredReservations();
+
+    void releaseExpiredReservationsIdle();
+}
@@ -0,0 +1,187 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Seat storage for {@link LockFreeSeatPlan}: one immutable {@link Seat} per slot of an
+ * {@link AtomicReferenceArray}, replaced with {@link #compareAndSet} instead of under a lock.
+ * <p>
+ * {@link #compareAndSetAll} replaces several seats in one atomic step. It installs a
+ * {@link MultiUpdate} descriptor in every slot, lowest index first, and then decides the outcome
+ * with a single CAS. Until that decision readers see all old seats and from then on all new ones,
+ * so nobody ever sees part of the update. A thread that finds a descriptor in a slot it wants to change completes
+ * the update first instead of waiting for its owner, which keeps the store lock-free.
+ */
+public class AtomicSeatStore implements SeatStore {
+    // Each slot holds a Seat or, while an update of several slots is in flight, its MultiUpdate
+    private final AtomicReferenceArray<Object> slots;
+
+    public AtomicSeatStore(SeatLayout layout) {
+        List<Seat> initial = new ObjectSeatStore(layout).stream().toList();
+        slots = new AtomicReferenceArray<>(initial.toArray());
+    }
+
+    public boolean compareAndSet(int index, Seat expected, Seat updated) {
+        while (true) {
+            Object current = slots.get(index);
+            if (current instanceof MultiUpdate update) {
+                update.complete();
+                continue;
+            }
+            return current == expected && slots.compareAndSet(index, expected, updated);
+        }
+    }
+
+    /**
+     * Replaces the seats at {@code index1} and {@code index2} if they still are {@code expected1}
+     * and {@code expected2}, as one atomic step.
+     *
+     * @return {@code false}, with neither seat changed, if one of them was replaced first
+     */
+    public boolean compareAndSetPair(int index1, Seat expected1, Seat updated1,
+                                     int index2, Seat expected2, Seat updated2) {
+        return compareAndSetAll(new int[]{index1, index2}, new Seat[]{expected1, expected2},
+                                new Seat[]{updated1, updated2});
+    }
+
+    /**
+     * Replaces the seat at each of {@code indices[i]} with {@code updated[i]} if all of them still
+     * are {@code expected[i]}, as one atomic step.
+     *
+     * @return {@code false}, with no seat changed, if one of them was replaced first
+     * @throws IllegalArgumentException if an index occurs twice
+     */
+    public boolean compareAndSetAll(int[] indices, Seat[] expected, Seat[] updated) {
+        return new MultiUpdate(indices, expected, updated).complete();
+    }
+
+    @Override
+    public int size() {
+        return slots.length();
+    }
+
+    @Override
+    public Seat get(int index) {
+        Object current = slots.get(index);
+        return current instanceof MultiUpdate update ? update.seatAt(index) : (Seat) current;
+    }
+
+    @Override
+    public int getRow(int index) {
+        return get(index).getRow();
+    }
+
+    @Override
+    public SeatClass getSeatClass(int index) {
+        return get(index).getSeatClass();
+    }
+
+    @Override
+    public SeatPosition getPosition(int index) {
+        return get(index).getPosition();
+    }
+
+    @Override
+    public boolean isExitRow(int index) {
+        return get(index).isExitRow();
+    }
+
+    @Override
+    public SeatStatus getStatus(int index) {
+        return get(index).getStatus();
+    }
+
+    @Override
+    public Booking getBooking(int index) {
+        return get(index).getBooking();
+    }
+
+    @Override
+    public Reservation getReservation(int index) {
+        return get(index).getReservation();
+    }
+
+    @Override
+    public void update(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        while (true) {
+            Seat current = get(index);
+            if (compareAndSet(index, current, current.withState(status, booking, reservation))) return;
+        }
+    }
+
+    /**
+     * Update of several slots, claimed in ascending index order. Like locks taken in ascending
+     * order, this keeps chains of helping threads from running in a cycle.
+     */
+    private final class MultiUpdate {
+        private static final int UNDECIDED = 0;
+        private static final int SUCCEEDED = 1;
+        private static final int FAILED = 2;
+
+        private final int[] indices;
+        private final Seat[] expected;
+        private final Seat[] updated;
+        private final AtomicInteger outcome = new AtomicInteger(UNDECIDED);
+
+        MultiUpdate(int[] indices, Seat[] expected, Seat[] updated) {
+            Integer[] order = new Integer[indices.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingInt(i -> indices[i]));
+            this.indices = new int[order.length];
+            this.expected = new Seat[order.length];
+            this.updated = new Seat[order.length];
+            for (int i = 0; i < order.length; i++) {
+                this.indices[i] = indices[order[i]];
+                this.expected[i] = expected[order[i]];
+                this.updated[i] = updated[order[i]];
+                if (i > 0 && this.indices[i] == this.indices[i - 1]) {
+                    throw new IllegalArgumentException("Seat index " + this.indices[i] + " occurs twice");
+                }
+            }
+        }
+
+        /** Seat a reader sees in a slot holding this update: the old one until it succeeded. */
+        Seat seatAt(int index) {
+            int i = Arrays.binarySearch(indices, index);
+            return outcome.get() == SUCCEEDED ? updated[i] : expected[i];
+        }
+
+        /** Runs the update to its end; any thread may call this, the owner or a helper. */
+        boolean complete() {
+            boolean claimed = true;
+            for (int i = 0; i < indices.length && claimed; i++) {
+                claimed = claim(indices[i], expected[i]);
+            }
+            if (claimed) {
+                outcome.compareAndSet(UNDECIDED, SUCCEEDED);
+            }
+            boolean succeeded = outcome.get() == SUCCEEDED;
+            for (int i = 0; i < indices.length; i++) {
+                slots.compareAndSet(indices[i], this, succeeded ? updated[i] : expected[i]);
+            }
+            return succeeded;
+        }
+
+        // Installs this update in the slot unless it already decided; fails it if the seat changed
+        private boolean claim(int index, Seat expected) {
+            while (true) {
+                Object current = slots.get(index);
+                if (current == this) return true;
+                if (current instanceof MultiUpdate other) {
+                    other.complete();
+                    continue;
+                }
+                if (outcome.get() != UNDECIDED) return false;
+                if (current != expected) {
+                    outcome.compareAndSet(UNDECIDED, FAILED);
+                    return false;
+                }
+                // A helper arriving after a failed update may claim the restored seat again;
+                // complete() then puts it back
+                if (slots.compareAndSet(index, expected, this)) return true;
+            }
+        }
+    }
+}
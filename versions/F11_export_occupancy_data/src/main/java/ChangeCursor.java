@@ -0,0 +1,38 @@
+/**
+ * Position of a change export: a change sequence together with the epoch of the plan it was taken
+ * of. Every {@link SeatPlan} instance, including one recovered after a restart, starts a new epoch
+ * and counts its sequences from 0 again, so a sequence is only meaningful within its epoch. Written
+ * as {@code <epoch in hex>:<sequence>}.
+ */
+public record ChangeCursor(long epoch, long sequence) {
+    /** Cursor before the first change of any plan; exports from it cover every changed seat. */
+    public static final ChangeCursor START = new ChangeCursor(0, 0);
+
+    public static ChangeCursor parse(String text) {
+        int colon = text.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Change cursor must be <epoch>:<sequence>: " + text);
+        }
+        try {
+            return new ChangeCursor(Long.parseUnsignedLong(text.substring(0, colon), 16),
+                                    Long.parseLong(text.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid change cursor: " + text, e);
+        }
+    }
+
+    /** Sequence to export the changes of {@code plan} from: 0, i.e. everything, for another epoch. */
+    public long sequenceIn(SeatPlan plan) {
+        return epoch == plan.getChangeEpoch() ? sequence : 0;
+    }
+
+    /** The cursor further on: the later sequence of one epoch, otherwise {@code other}. */
+    public ChangeCursor max(ChangeCursor other) {
+        return epoch == other.epoch && sequence > other.sequence ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(epoch) + ":" + sequence;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Struct-of-arrays seat storage. Only the mutable state lives here: statuses in a byte array and
+ * bookings/reservations in arrays indexed by seat, so a state change writes a few array slots
+ * instead of allocating a new {@link Seat}. Row, letter and seat traits are read from the shared
+ * {@link SeatLayout}, and seats are only materialized when {@link #get} is called.
+ * <p>
+ * Nothing here synchronizes: every slot belongs to one seat, so the row lock the caller holds
+ * already guards it and stripes never contend on the store.
+ */
+public class ColumnarSeatStore implements SeatStore {
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private final SeatLayout layout;
+    private final byte[] statuses;
+    private final Booking[] bookings;
+    private final Reservation[] reservations;
+
+    public ColumnarSeatStore(SeatLayout layout) {
+        this.layout = layout;
+        int size = layout.getSeatCount();
+        // AVAILABLE is ordinal 0, so the zeroed array already marks every seat available
+        statuses = new byte[size];
+        bookings = new Booking[size];
+        reservations = new Reservation[size];
+    }
+
+    @Override
+    public int size() {
+        return statuses.length;
+    }
+
+    @Override
+    public Seat get(int index) {
+        return layout.seatAt(index, getStatus(index), getBooking(index), getReservation(index));
+    }
+
+    @Override
+    public SeatStatus getStatus(int index) {
+        return STATUSES[statuses[index]];
+    }
+
+    @Override
+    public Booking getBooking(int index) {
+        return bookings[index];
+    }
+
+    @Override
+    public Reservation getReservation(int index) {
+        return reservations[index];
+    }
+
+    @Override
+    public void update(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        statuses[index] = (byte) status.ordinal();
+        bookings[index] = booking;
+        reservations[index] = reservation;
+    }
+
+    @Override
+    public int getRow(int index) {
+        return layout.getRow(index);
+    }
+
+    @Override
+    public SeatClass getSeatClass(int index) {
+        return layout.getSeatClass(index);
+    }
+
+    @Override
+    public SeatPosition getPosition(int index) {
+        return layout.getPosition(index);
+    }
+
+    @Override
+    public boolean isExitRow(int index) {
+        return layout.isExitRow(index);
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.IOException;
+
+/**
+ * RFC 4180 CSV: a header line with the column names, then one line per record. Text fields are
+ * quoted only if they contain a comma, quote or line break; {@code null} is an empty field.
+ */
+public class CsvEncoder implements RecordEncoder {
+    private final ReportWriter out;
+    private boolean firstField;
+
+    public CsvEncoder(ReportWriter out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(String... columns) throws IOException {
+        beginRecord();
+        for (String column : columns) {
+            field(column, column);
+        }
+        endRecord();
+    }
+
+    @Override
+    public void beginRecord() {
+        firstField = true;
+    }
+
+    @Override
+    public RecordEncoder field(String name, CharSequence value) throws IOException {
+        separator();
+        if (value == null) return this;
+        if (!needsQuotes(value)) {
+            out.text(value);
+            return this;
+        }
+        out.text('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.text('"');
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                out.codePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                out.text(c);
+            }
+        }
+        out.text('"');
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, long value) throws IOException {
+        separator();
+        out.right(value, 0);
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, double value, int decimals) throws IOException {
+        separator();
+        out.right(value, decimals, 0);
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, boolean value) throws IOException {
+        separator();
+        out.text(value ? "true" : "false");
+        return this;
+    }
+
+    @Override
+    public void endRecord() throws IOException {
+        out.text("\r\n");
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) out.text(',');
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Channel that compresses everything written to it into a target channel, as a gzip member
+ * (RFC 1952) or a zlib stream (RFC 1950). Bytes are compressed as they arrive, so a
+ * {@link ReportWriter} on top of it streams compressed rows to disk without holding the export
+ * in memory. {@link #close} finishes the stream and closes the target.
+ */
+public class DeflatingChannel implements WritableByteChannel {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Magic, deflate method, no flags, no modification time, no extra flags, unknown OS
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] NO_INPUT = new byte[0];
+
+    private final WritableByteChannel target;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long inputBytes;
+    private boolean open = true;
+
+    private DeflatingChannel(WritableByteChannel target, int level, boolean gzip) {
+        this.target = target;
+        this.deflater = new Deflater(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+        if (gzip) output.put(GZIP_HEADER);
+    }
+
+    /** @param level 0-9, or {@link Deflater#DEFAULT_COMPRESSION} */
+    public static DeflatingChannel gzip(WritableByteChannel target, int level) {
+        return new DeflatingChannel(target, level, true);
+    }
+
+    /** @param level 0-9, or {@link Deflater#DEFAULT_COMPRESSION} */
+    public static DeflatingChannel zlib(WritableByteChannel target, int level) {
+        return new DeflatingChannel(target, level, false);
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        int length = source.remaining();
+        if (crc != null) crc.update(source.duplicate());
+        inputBytes += length;
+        // The deflater advances the source position as it consumes it
+        deflater.setInput(source);
+        while (!deflater.needsInput()) {
+            deflater.deflate(output);
+            if (!output.hasRemaining()) drain();
+        }
+        // The deflater keeps reading from the buffer it was given, which the caller reuses
+        deflater.setInput(NO_INPUT);
+        return length;
+    }
+
+    /** Number of uncompressed bytes written so far. */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        open = false;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflater.deflate(output);
+                if (!output.hasRemaining()) drain();
+            }
+            if (crc != null) {
+                if (output.remaining() < 2 * Integer.BYTES) drain();
+                output.putInt((int) crc.getValue()).putInt((int) inputBytes);
+            }
+            drain();
+        } finally {
+            deflater.end();
+            target.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            target.write(output);
+        }
+        output.clear();
+    }
+}
@@ -0,0 +1,67 @@
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Compression applied to exported files while they are written.
+ *
+ * @param level 1 (fastest) to 9 (smallest), 0 to store, or {@link Deflater#DEFAULT_COMPRESSION}
+ */
+public record ExportCompression(Codec codec, int level) {
+    public static final ExportCompression NONE = new ExportCompression(Codec.NONE, Deflater.DEFAULT_COMPRESSION);
+
+    public enum Codec {
+        NONE(""),
+        GZIP(".gz"),
+        /** zlib-wrapped deflate, as in HTTP's "deflate" content coding */
+        DEFLATE(".zz");
+
+        private final String extension;
+
+        Codec(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /** Resolves a codec by name, ignoring case: "none", "gzip", "deflate". */
+        public static Codec fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown compression: " + name);
+            }
+        }
+    }
+
+    public ExportCompression {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+        }
+    }
+
+    /** Returns {@code channel} itself, or a channel compressing into it. */
+    public WritableByteChannel wrap(WritableByteChannel channel) {
+        return switch (codec) {
+            case NONE -> channel;
+            case GZIP -> DeflatingChannel.gzip(channel, level);
+            case DEFLATE -> DeflatingChannel.zlib(channel, level);
+        };
+    }
+
+    /** Appends the codec's file extension to {@code file} unless it already ends with it. */
+    public Path fileFor(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(codec.extension) ? file : file.resolveSibling(name + codec.extension);
+    }
+
+    @Override
+    public String toString() {
+        return codec == Codec.NONE ? "none" : codec.name().toLowerCase(Locale.ROOT)
+                + (level == Deflater.DEFAULT_COMPRESSION ? "" : " level " + level);
+    }
+}
@@ -0,0 +1,37 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one {@link ExportJob} run on an export thread, whatever its outcome.
+ * Exports taking less than the threshold, 100 ms by default, are not recorded.
+ */
+@Name("seatplan.Export")
+@Label("Seat Plan Export")
+@Category("Seat Plan")
+@Description("An export writing a plan snapshot to its file, from the start of the run until the file was in place")
+@Threshold("100 ms")
+public class ExportEvent extends Event {
+    @Label("Job Id")
+    int jobId;
+    @Label("Description")
+    String description;
+    @Label("File")
+    String file;
+    @Label("Compression")
+    String compression;
+    @Label("State")
+    String state;
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+    @Label("Queue Time")
+    @Description("Time the export waited for an export thread")
+    @Timespan(Timespan.MILLISECONDS)
+    long queueTime;
+}
@@ -0,0 +1,39 @@
+import java.util.Locale;
+import java.util.function.Function;
+
+/** Machine-readable export formats, each with the encoder that writes it. */
+public enum ExportFormat {
+    CSV("csv", CsvEncoder::new),
+    JSON_LINES("jsonl", JsonLinesEncoder::new);
+
+    private final String extension;
+    private final Function<ReportWriter, RecordEncoder> encoderFactory;
+
+    ExportFormat(String extension, Function<ReportWriter, RecordEncoder> encoderFactory) {
+        this.extension = extension;
+        this.encoderFactory = encoderFactory;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public RecordEncoder newEncoder(ReportWriter out) {
+        return encoderFactory.apply(out);
+    }
+
+    /**
+     * Resolves a format by name or file extension, ignoring case: "csv", "jsonl", "json_lines".
+     *
+     * @throws IllegalArgumentException if no format matches
+     */
+    public static ExportFormat fromName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(normalized) || format.name().toLowerCase(Locale.ROOT).equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + name);
+    }
+}
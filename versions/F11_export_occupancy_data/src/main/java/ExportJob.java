@@ -0,0 +1,138 @@
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One export submitted to an {@link ExportService}. Progress is the number of bytes written to the
+ * file so far, after compression; {@link #cancel} stops the export at its next buffer flush and
+ * leaves no file behind.
+ */
+public class ExportJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    @Getter
+    private final int id;
+    @Getter
+    private final String description;
+    @Getter
+    private final Path file;
+    @Getter
+    private final Instant submitted;
+    private final CompletableFuture<Path> completion = new CompletableFuture<>();
+    @Getter
+    private volatile State state = State.QUEUED;
+    // Several threads write at once when a fleet export writes one file per flight
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile boolean cancelRequested;
+    private volatile Instant started;
+    private volatile Instant finished;
+
+    ExportJob(int id, String description, Path file) {
+        this.id = id;
+        this.description = description;
+        this.file = file;
+        this.submitted = Instant.now();
+    }
+
+    /**
+     * Asks the export to stop. A queued export never starts; a running one stops at its next
+     * buffer flush.
+     *
+     * @return {@code false} if the export had already finished
+     */
+    public boolean cancel() {
+        if (isDone()) return false;
+        cancelRequested = true;
+        return true;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /** Completes with the exported file, or exceptionally if the export failed or was cancelled. */
+    public CompletableFuture<Path> getCompletion() {
+        return completion;
+    }
+
+    /** Time from submission until now, or until the export finished. */
+    public Duration getElapsed() {
+        Instant end = finished;
+        return Duration.between(submitted, end != null ? end : Instant.now());
+    }
+
+    /** Time from submission until an export thread picked the job up, or until now if it is queued. */
+    public Duration getQueueTime() {
+        Instant end = started;
+        return Duration.between(submitted, end != null ? end : Instant.now());
+    }
+
+    /** @return {@code false} if the job was cancelled while it was queued */
+    boolean start() {
+        started = Instant.now();
+        if (cancelRequested) {
+            finish(State.CANCELLED, null);
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    void finish(State result, Throwable failure) {
+        finished = Instant.now();
+        state = result;
+        switch (result) {
+            case COMPLETED -> completion.complete(file);
+            case CANCELLED -> completion.cancel(false);
+            default -> completion.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Wraps a target channel to count progress and to stop writing once cancelled. An export may
+     * track several channels, also from several threads.
+     */
+    WritableByteChannel track(WritableByteChannel channel) {
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) throws IOException {
+                if (cancelRequested) throw new InterruptedIOException("Export " + id + " cancelled");
+                int written = channel.write(source);
+                bytesWritten.addAndGet(written);
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s -> %s: %s, %d KB, %d ms", id, description, file, state,
+                getBytesWritten() / 1024, getElapsed().toMillis());
+    }
+}
@@ -0,0 +1,204 @@
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs exports in the background so they never hold up seat operations. Each export works on a
+ * {@link SeatPlan#snapshot} taken when it is submitted, so its file shows the plan at that moment
+ * however long the export waits or runs. Exports go to a temporary file next to the target that is
+ * moved into place once complete. A fixed number of export threads and a bounded queue keep large
+ * exports from piling up; submissions beyond the queue are rejected. With a
+ * {@link #setCompression compression} set, files are compressed as they are written and get the
+ * codec's extension. {@link Task Tasks} such as a fleet export, which open their own files, run on
+ * the same threads and are tracked and cancelled like any other export.
+ */
+public class ExportService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_QUEUE_CAPACITY = 8;
+    private static final int FINISHED_JOBS_KEPT = 32;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, ExportJob> jobs = new ConcurrentSkipListMap<>();
+    /** Compression of exports submitted from now on. */
+    @Getter
+    @Setter
+    private volatile ExportCompression compression = ExportCompression.NONE;
+
+    /** Writes the export of a plan snapshot to {@code out}. */
+    @FunctionalInterface
+    public interface Export {
+        void write(SeatPlan snapshot, ReportWriter out) throws IOException;
+    }
+
+    /**
+     * An export that opens its own files. It writes them through {@link ExportJob#track} to report
+     * progress and to stop when cancelled, compresses them with {@code compression}, and cleans up
+     * after itself if it fails. It reads the plans it exports only once it runs.
+     */
+    @FunctionalInterface
+    public interface Task {
+        void run(ExportJob job, ExportCompression compression) throws IOException;
+    }
+
+    public ExportService() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads       number of exports running at the same time
+     * @param queueCapacity number of exports that may wait for a thread
+     */
+    public ExportService(int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "seat-export-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    /**
+     * Snapshots {@code plan} and queues its export to {@code file}.
+     *
+     * @throws RejectedExecutionException if the queue is full or the service is closed
+     */
+    public ExportJob submit(String description, SeatPlan plan, Path file, Export export) {
+        ExportCompression jobCompression = compression;
+        ExportJob job = new ExportJob(nextId.getAndIncrement(), description, jobCompression.fileFor(file));
+        SeatPlan snapshot = plan.snapshot();
+        return enqueue(job, jobCompression, (running, fileCompression) ->
+                writeFile(running, snapshot, fileCompression, export));
+    }
+
+    /**
+     * Queues {@code task} with the current compression. The job shows {@code target} as its file;
+     * pass the name the compression gives it.
+     *
+     * @throws RejectedExecutionException if the queue is full or the service is closed
+     */
+    public ExportJob submit(String description, Path target, Task task) {
+        ExportJob job = new ExportJob(nextId.getAndIncrement(), description, target);
+        return enqueue(job, compression, task);
+    }
+
+    private ExportJob enqueue(ExportJob job, ExportCompression jobCompression, Task task) {
+        executor.execute(() -> run(job, jobCompression, task));
+        jobs.put(job.getId(), job);
+        pruneFinishedJobs();
+        log.debug("Queued export {}", job);
+        return job;
+    }
+
+    /** Returns the export with {@code id}, or {@code null} if it is unknown or long finished. */
+    public ExportJob get(int id) {
+        return jobs.get(id);
+    }
+
+    /** Running and queued exports and the most recently finished ones, oldest first. */
+    public List<ExportJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    private void run(ExportJob job, ExportCompression compression, Task task) {
+        if (!job.start()) {
+            log.info("Export #{} cancelled before it started", job.getId());
+            return;
+        }
+        ExportEvent event = new ExportEvent();
+        event.begin();
+        try {
+            task.run(job, compression);
+            job.finish(ExportJob.State.COMPLETED, null);
+            log.info("Finished export {}", job);
+        } catch (Throwable e) {
+            if (job.isCancelRequested() && e instanceof InterruptedIOException) {
+                job.finish(ExportJob.State.CANCELLED, null);
+                log.info("Cancelled export {}", job);
+            } else {
+                // Errors such as OutOfMemoryError fail the job too, so nobody waits on it forever
+                job.finish(ExportJob.State.FAILED, e);
+                log.error("Failed export {}", job, e);
+                if (e instanceof Error error) throw error;
+            }
+        } finally {
+            if (event.shouldCommit()) {
+                event.jobId = job.getId();
+                event.description = job.getDescription();
+                event.file = job.getFile().toString();
+                event.compression = compression.toString();
+                event.state = job.getState().name();
+                event.bytesWritten = job.getBytesWritten();
+                event.queueTime = job.getQueueTime().toMillis();
+                event.commit();
+            }
+        }
+    }
+
+    // Writes the export to a temporary file and moves it into place once complete
+    private static void writeFile(ExportJob job, SeatPlan snapshot, ExportCompression compression, Export export)
+            throws IOException {
+        Path file = job.getFile();
+        Path temp = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            try (ReportWriter out = new ReportWriter(compression.wrap(job.track(FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))))) {
+                export.write(snapshot, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<ExportJob> finished = jobs.values().stream().filter(ExportJob::isDone).toList();
+        for (int i = 0; i < finished.size() - FINISHED_JOBS_KEPT; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+
+    /** Stops accepting exports and waits for the queued and running ones to finish. */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.info("Waiting for {} exports to finish", executor.getActiveCount() + executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
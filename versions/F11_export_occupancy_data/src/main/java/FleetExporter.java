@@ -0,0 +1,207 @@
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+
+/**
+ * End-of-day manifests for every flight of a {@link FlightRegistry}: the occupancy report followed
+ * by the passenger list, as {@link SeatReports} writes them. Flights are exported in parallel on a
+ * fork-join pool, each from its own {@link SeatPlan#snapshot}. Flights are always taken in flight
+ * id order, so a merged file is the same however many threads wrote it. With a
+ * {@link #setCompression compression} set, files are compressed as they are written and get the
+ * codec's extension; a merged file is compressed by the thread writing it. A failed export removes
+ * the file it was writing but keeps the manifests of flights already written.
+ */
+public class FleetExporter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FleetExporter.class);
+    private static final String FLIGHT_RULE = "════════════════════════════════════════";
+
+    private final FlightRegistry registry;
+    private final ForkJoinPool pool;
+    @Getter
+    @Setter
+    private volatile ExportCompression compression = ExportCompression.NONE;
+    /** Wraps each file channel before compression, e.g. {@link ExportJob#track} to report progress and cancel. */
+    @Setter
+    private volatile UnaryOperator<WritableByteChannel> tracker = UnaryOperator.identity();
+
+    /** @param bytes size of the manifests before compression */
+    public record Result(int flights, long bytes, Duration elapsed) {
+        public double megabytesPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds > 0 ? bytes / seconds / (1024 * 1024) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d flights, %.1f MB in %d ms (%.0f MB/s)", flights, bytes / (1024.0 * 1024),
+                    elapsed.toMillis(), megabytesPerSecond());
+        }
+    }
+
+    public FleetExporter(FlightRegistry registry) {
+        this(registry, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param parallelism number of flights exported at the same time */
+    public FleetExporter(FlightRegistry registry, int parallelism) {
+        this.registry = registry;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /** Writes one manifest per flight to {@code directory}, named after the flight id. */
+    public Result exportPerFlight(Path directory, LocalDateTime generated) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        ExportCompression fileCompression = compression;
+        UnaryOperator<WritableByteChannel> fileTracker = tracker;
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+        for (String flightId : sortedFlightIds()) {
+            tasks.add(pool.submit(() -> {
+                Path file = fileCompression.fileFor(manifestFile(directory, flightId));
+                try (ReportWriter out = new ReportWriter(fileCompression.wrap(fileTracker.apply(FileChannel.open(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))))) {
+                    writeManifest(flightId, generated, out);
+                    out.flush();
+                    return out.getBytesWritten();
+                } catch (IOException | RuntimeException e) {
+                    deleteQuietly(file);
+                    throw e;
+                }
+            }));
+        }
+        long bytes = 0;
+        try {
+            for (ForkJoinTask<Long> task : tasks) {
+                bytes += join(task);
+            }
+        } catch (IOException | RuntimeException e) {
+            tasks.forEach(task -> task.cancel(false));
+            throw e;
+        }
+        return finish(tasks.size(), bytes, start);
+    }
+
+    /**
+     * Writes the manifests of all flights to one file in flight id order. Flights are rendered in
+     * parallel into memory and written as soon as all flights before them are, with at most a few
+     * rendered flights per thread waiting their turn.
+     */
+    public Result exportMerged(Path file, LocalDateTime generated) throws IOException {
+        long start = System.nanoTime();
+        List<String> flightIds = sortedFlightIds();
+        int window = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+        long bytes = 0;
+        ExportCompression fileCompression = compression;
+        Path target = fileCompression.fileFor(file);
+        try (WritableByteChannel channel = fileCompression.wrap(tracker.apply(FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)))) {
+            int next = 0;
+            while (next < flightIds.size() || !pending.isEmpty()) {
+                while (next < flightIds.size() && pending.size() < window) {
+                    String flightId = flightIds.get(next++);
+                    pending.add(pool.submit(() -> render(flightId, generated)));
+                }
+                ByteBuffer manifest = ByteBuffer.wrap(join(pending.poll()));
+                while (manifest.hasRemaining()) {
+                    bytes += channel.write(manifest);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(task -> task.cancel(false));
+            deleteQuietly(target);
+            throw e;
+        }
+        return finish(flightIds.size(), bytes, start);
+    }
+
+    /** Writes the manifest of one flight from a snapshot of its plan. */
+    void writeManifest(String flightId, LocalDateTime generated, ReportWriter out) throws IOException {
+        SeatPlan plan = registry.get(flightId);
+        if (plan == null) return;  // removed since the export started
+        SeatPlan snapshot = plan.snapshot();
+        out.text("Flight ").text(flightId).text(" (").text(snapshot.getLayout().getAircraftType()).text(')').newline();
+        out.text(FLIGHT_RULE).newline();
+        SeatReports.writeOccupancyReport(snapshot.calculateOccupancyStats(), generated, out);
+        SeatReports.writePassengerList(snapshot, generated, out);
+        out.newline();
+    }
+
+    private byte[] render(String flightId, LocalDateTime generated) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter out = new ReportWriter(Channels.newChannel(bytes), 8 * 1024)) {
+            writeManifest(flightId, generated, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<String> sortedFlightIds() {
+        List<String> flightIds = new ArrayList<>(registry.getFlightIds());
+        flightIds.sort(null);
+        return flightIds;
+    }
+
+    static Path manifestFile(Path directory, String flightId) {
+        return directory.resolve(flightId.replaceAll("[^A-Za-z0-9._-]", "_") + ".txt");
+    }
+
+    private Result finish(int flights, long bytes, long start) {
+        Result result = new Result(flights, bytes, Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Exported fleet manifests: {}", result);
+        return result;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting fleet manifests", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // The pool wraps a checked exception of a submitted Callable in plain RuntimeExceptions
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,116 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Seat plans of many flights, keyed by flight id. Plans are created on first use, and all flights
+ * of one aircraft type share a single {@link SeatLayout}. Both maps are concurrent, so different
+ * flights are looked up and changed without any registry-wide lock. Layouts are loaded (see
+ * {@link LayoutCache}) and plans created outside the maps, so a slow layout file never blocks other
+ * keys of a map bin. Reservation expiry of every flight runs on one shared background thread.
+ * Removing a flight or closing the registry also closes the flight's plan and its seat store.
+ */
+public class FlightRegistry implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FlightRegistry.class);
+    private final LayoutCache layouts;
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Function<SeatLayout, SeatPlan> planFactory;
+    private final ScheduledExecutorService expiryExecutor = ReservationExpiryScheduler.newExecutor();
+
+    /** Uses the bundled layouts of {@link SeatLayout#forAircraftType}, sharing its cache. */
+    public FlightRegistry() {
+        this(SeatLayout.BUILT_IN, layout -> new SeatPlan(layout, ColumnarSeatStore::new, 1));
+    }
+
+    /**
+     * @param layoutLoader builds the layout of an aircraft type; called once per type, or again after it failed
+     * @param planFactory  creates the plan of a new flight from its shared layout
+     */
+    public FlightRegistry(Function<String, SeatLayout> layoutLoader, Function<SeatLayout, SeatPlan> planFactory) {
+        this(new LayoutCache(layoutLoader), planFactory);
+    }
+
+    private FlightRegistry(LayoutCache layouts, Function<SeatLayout, SeatPlan> planFactory) {
+        this.layouts = layouts;
+        this.planFactory = planFactory;
+    }
+
+    /**
+     * Returns the plan of {@code flightId}, creating it for {@code aircraftType} if the flight is new.
+     *
+     * @throws IllegalArgumentException if the flight exists with a different aircraft type
+     */
+    public SeatPlan getOrCreate(String flightId, String aircraftType) {
+        Flight flight = flights.get(flightId);
+        if (flight == null) {
+            flight = createFlight(flightId, aircraftType);
+        }
+        if (!flight.plan().getLayout().getAircraftType().equals(aircraftType)) {
+            throw new IllegalArgumentException(String.format("Flight %s is operated with a %s, not a %s",
+                    flightId, flight.plan().getLayout().getAircraftType(), aircraftType));
+        }
+        return flight.plan();
+    }
+
+    /** Returns the plan of {@code flightId}, or {@code null} if the flight is unknown. */
+    public SeatPlan get(String flightId) {
+        Flight flight = flights.get(flightId);
+        return flight == null ? null : flight.plan();
+    }
+
+    public boolean remove(String flightId) {
+        Flight flight = flights.remove(flightId);
+        if (flight == null) return false;
+        close(flightId, flight);
+        return true;
+    }
+
+    public Set<String> getFlightIds() {
+        return Set.copyOf(flights.keySet());
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    public SeatLayout getLayout(String aircraftType) {
+        return layouts.get(aircraftType);
+    }
+
+    // Two threads opening the same flight may both create a plan; the first one in the map wins
+    private Flight createFlight(String flightId, String aircraftType) {
+        SeatPlan plan = planFactory.apply(getLayout(aircraftType));
+        Flight created = new Flight(plan, new ReservationExpiryScheduler(plan, expiryExecutor));
+        Flight existing = flights.putIfAbsent(flightId, created);
+        if (existing != null) {
+            close(flightId, created);
+            return existing;
+        }
+        log.info("Opened flight {} ({}, {} seats)", flightId, aircraftType, plan.getLayout().getSeatCount());
+        return created;
+    }
+
+    @Override
+    public void close() {
+        flights.forEach(this::close);
+        flights.clear();
+        expiryExecutor.shutdownNow();
+    }
+
+    private void close(String flightId, Flight flight) {
+        flight.expiryScheduler().close();
+        try {
+            flight.plan().close();
+        } catch (IOException e) {
+            log.warn("Failed to close the seat store of flight {}", flightId, e);
+        }
+    }
+
+    private record Flight(SeatPlan plan, ReservationExpiryScheduler expiryScheduler) {}
+}
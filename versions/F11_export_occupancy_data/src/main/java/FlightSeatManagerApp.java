@@ -1,26 +1,49 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
 
 public class FlightSeatManagerApp {
     private static final Logger log = LoggerFactory.getLogger(FlightSeatManagerApp.class);
-    private final SeatPlan seatPlan;
+    private static final String DEFAULT_FLIGHT_ID = "DEFAULT";
+    private final FlightRegistry flightRegistry;
+    private final ExportService exportService = new ExportService();
+    private final SeatMapRenderer seatMapRenderer = new SeatMapRenderer();
+    // Shared by the plans of all flights opened in this session
+    private final SeatPlanMetrics metrics = new SeatPlanMetrics();
+    // Where each flight's last change export ended, to resume the next one from
+    private final Map<String, ChangeCursor> exportedChanges = new ConcurrentHashMap<>();
+    private String flightId;
+    private SeatPlan seatPlan;
 
     public FlightSeatManagerApp() {
-        this.seatPlan = new SeatPlan();
+        this(DEFAULT_FLIGHT_ID);
+    }
+
+    public FlightSeatManagerApp(String flightId) {
+        this.flightRegistry = new FlightRegistry();
+        this.flightId = flightId;
+        this.seatPlan = flightRegistry.getOrCreate(flightId, SeatLayout.AIRBUS_A350_900);
+        seatPlan.setMetrics(metrics);
     }
 
     public void start() {
         log.info("Flight Seat Management System started");
-        try (Scanner scanner = new Scanner(System.in)) {
+        try (Scanner scanner = new Scanner(System.in); flightRegistry; exportService) {
             boolean running = true;
             while (running) {
-                seatPlan.releaseExpiredReservations();  // Auto-clean before every operation
-                log.info("\nMenu:");
+                log.info("\nMenu (flight {}):", flightId);
                 log.info("1. Display seat availability");
                 log.info("2. Assign seat");
                 log.info("3. Change seat assignment");
@@ -35,7 +58,14 @@ public class FlightSeatManagerApp {
                 log.info("12. Export passenger list");
                 log.info("13. Block seat");
                 log.info("14. Release seat");
-                log.info("15. Exit");
+                log.info("15. Book group");
+                log.info("16. Switch flight");
+                log.info("17. Export data (CSV/JSON Lines)");
+                log.info("18. Show or cancel exports");
+                log.info("19. Export fleet manifests");
+                log.info("20. Set export compression ({})", exportService.getCompression());
+                log.info("21. Show operation metrics");
+                log.info("22. Exit");
 
                 int choice = scanner.nextInt();
                 scanner.nextLine(); // Consume newline
@@ -55,7 +85,14 @@ public class FlightSeatManagerApp {
                     case 12 -> exportPassengerList(scanner);
                     case 13 -> blockSeat(scanner);
                     case 14 -> releaseSeat(scanner);
-                    case 15 -> running = false;
+                    case 15 -> bookGroup(scanner);
+                    case 16 -> switchFlight(scanner);
+                    case 17 -> exportData(scanner);
+                    case 18 -> showExports(scanner);
+                    case 19 -> exportFleet(scanner);
+                    case 20 -> setExportCompression(scanner);
+                    case 21 -> metrics.logSummary();
+                    case 22 -> running = false;
                     default -> log.warn("Invalid choice. Please try again.");
                 }
             }
@@ -63,29 +100,25 @@ public class FlightSeatManagerApp {
         log.info("System exiting...");
     }
 
-    private void displaySeatAvailability() {
-        log.info("Seat Availability:");
-        seatPlan.getSections().forEach(section -> {
-            log.info("\n=== {} Class ===", section.getSeatClass());
-            IntStream.rangeClosed(section.getStartRow(), section.getEndRow())
-                    .forEach(row -> {
-                        List<Seat> seatsInRow = seatPlan.getSeatsByClassAndRow(section.getSeatClass(), row);
-                        String seatDisplay = seatsInRow.stream()
-                                .map(seat -> getStatusSymbol(seat.getStatus()))
-                                .collect(Collectors.joining(" "));
-                        log.info("Row {}: {}", String.format("%2d", row), seatDisplay);
-                    });
-        });
+    private void switchFlight(Scanner scanner) {
+        log.info("Enter flight id:");
+        String newFlightId = scanner.nextLine().trim();
+        if (newFlightId.isEmpty()) {
+            log.error("Flight id must not be empty.");
+            return;
+        }
+        try {
+            seatPlan = flightRegistry.getOrCreate(newFlightId, SeatLayout.AIRBUS_A350_900);
+            seatPlan.setMetrics(metrics);
+            flightId = newFlightId;
+            log.info("Now managing flight {} ({} flights open)", flightId, flightRegistry.size());
+        } catch (IllegalArgumentException e) {
+            log.error("Cannot switch to flight {}: {}", newFlightId, e.getMessage());
+        }
     }
 
-    private String getStatusSymbol(SeatStatus status) {
-        switch (status) {
-            case AVAILABLE: return "[A]";
-            case RESERVED: return "[R]";
-            case OCCUPIED: return "[O]";
-            case BLOCKED: return "[B]";
-            default: return "[?]";
-        }
+    private void displaySeatAvailability() {
+        log.info("{}", seatMapRenderer.render(seatPlan));
     }
 
     private void assignSeat(Scanner scanner) {
@@ -96,10 +129,7 @@ public class FlightSeatManagerApp {
         scanner.nextLine(); // Consume remaining newline
 
         // Validate seat existence
-        Seat seat = seatPlan.getSeats().stream()
-                .filter(s -> s.getRow() == row && s.getSeatLetter().equals(seatLetter))
-                .findFirst()
-                .orElse(null);
+        Seat seat = seatPlan.getSeat(row, seatLetter);
 
         if (seat == null) {
             log.error("Seat {}{} does not exist.", row, seatLetter);
@@ -129,6 +159,41 @@ public class FlightSeatManagerApp {
         }
     }
 
+    private void bookGroup(Scanner scanner) {
+        log.info("Class (1-Business, 2-Premium Economy, 3-Economy):");
+        int classChoice = scanner.nextInt();
+        log.info("Number of passengers:");
+        int groupSize = scanner.nextInt();
+        scanner.nextLine(); // Consume remaining newline
+
+        if (classChoice < 1 || classChoice > 3 || groupSize < 1) {
+            log.error("Invalid class or group size.");
+            return;
+        }
+        SeatClass seatClass = SeatClass.values()[classChoice - 1];
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 1; i <= groupSize; i++) {
+            log.info("Passenger {} name:", i);
+            String name = scanner.nextLine();
+            log.info("Passenger {} booking number:", i);
+            String bookingNumber = scanner.nextLine();
+            log.info("Passenger {} special requests (if any):", i);
+            String specialRequests = scanner.nextLine();
+            bookings.add(new Booking(name, bookingNumber, specialRequests));
+        }
+
+        List<Seat> seats = seatPlan.bookGroup(seatClass, bookings);
+        if (seats.isEmpty()) {
+            log.error("No {} seats left for a group of {} sitting together.", seatClass, groupSize);
+            return;
+        }
+        for (int i = 0; i < seats.size(); i++) {
+            log.info("Booked seat {}{} for {}", seats.get(i).getRow(), seats.get(i).getSeatLetter(),
+                    bookings.get(i).passengerName());
+        }
+    }
+
     private void changeAssignment(Scanner scanner) {
         log.info("Enter current row:");
         int currentRow = scanner.nextInt();
@@ -321,80 +386,181 @@ public class FlightSeatManagerApp {
             log.info("│ Occupancy         │ {:12}% │", String.format("%.1f", stat.occupancyPercentage()));
             log.info("└───────────────────┴───────────────┘\n");
         });
+        Instant nextDeadline = seatPlan.getNextReservationDeadline();
+        log.info("Pending reservations: {} (next expiry: {})",
+                seatPlan.getPendingReservationCount(),
+                nextDeadline != null ? nextDeadline : "none");
     }
     private void exportOccupancyData(Scanner scanner) {
         log.info("Enter filename for occupancy report:");
         String filename = scanner.nextLine().trim();
         
-        try {
-            String report = generateOccupancyReport();
-            Path path = Paths.get(filename);
-            Files.write(path, report.getBytes(StandardCharsets.UTF_8));
-            log.info("Successfully exported occupancy data to: {}", path.toAbsolutePath());
-        } catch (IOException e) {
-            log.error("Failed to export occupancy data: {}", e.getMessage());
-        }
-    }
-    
-    private String generateOccupancyReport() {
-        Map<SeatClass, ClassStats> stats = seatPlan.calculateOccupancyStats();
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append("Flight Seat Occupancy Report\n");
-        sb.append("Generated: ").append(LocalDateTime.now()).append("\n\n");
-        
-        stats.forEach((clazz, stat) -> {
-            sb.append(String.format("%s Class\n", clazz));
-            sb.append("────────────────────────────────────────\n");
-            sb.append(String.format("Total Seats:      %4d\n", stat.totalSeats()));
-            sb.append(String.format("Available:        %4d\n", stat.available()));
-            sb.append(String.format("Occupied:         %4d\n", stat.occupied()));
-            sb.append(String.format("Reserved:         %4d\n", stat.reserved()));
-            sb.append(String.format("Blocked:          %4d\n", stat.blocked()));
-            sb.append(String.format("Occupancy Rate:   %6.1f%%\n\n", stat.occupancyPercentage()));
-        });
-        
-        return sb.toString();
+        LocalDateTime generated = LocalDateTime.now();
+        submitExport("occupancy report", Paths.get(filename), (plan, out) ->
+                SeatReports.writeOccupancyReport(plan.calculateOccupancyStats(), generated, out));
     }
     
     private void exportPassengerList(Scanner scanner) {
         log.info("Enter filename for passenger list:");
         String filename = scanner.nextLine().trim();
         
+        LocalDateTime generated = LocalDateTime.now();
+        submitExport("passenger list", Paths.get(filename), (plan, out) ->
+                SeatReports.writePassengerList(plan, generated, out));
+    }
+
+    private void exportData(Scanner scanner) {
+        log.info("Export (1) seat map, (2) passenger list, (3) occupancy stats or (4) seat changes:");
+        String dataset = scanner.nextLine().trim();
+        ChangeCursor since = ChangeCursor.START;
+        if (dataset.equals("4")) {
+            ChangeCursor last = exportedChanges.getOrDefault(flightId, ChangeCursor.START);
+            log.info("Export changes after cursor <epoch>:<sequence> (blank for {}, the end of the last change export):", last);
+            String input = scanner.nextLine().trim();
+            try {
+                since = input.isEmpty() ? last : ChangeCursor.parse(input);
+            } catch (IllegalArgumentException e) {
+                log.error(e.getMessage());
+                return;
+            }
+            if (since.sequence() > 0 && since.epoch() != seatPlan.getChangeEpoch()) {
+                log.warn("Cursor {} is from an earlier instance of flight {}; exporting every changed seat", since, flightId);
+            }
+        }
+        log.info("Format (csv or jsonl):");
+        ExportFormat format;
+        try {
+            format = ExportFormat.fromName(scanner.nextLine());
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return;
+        }
+        log.info("Enter filename:");
+        Path path = Paths.get(scanner.nextLine().trim());
+
+        switch (dataset) {
+            case "1" -> submitExport("seat map " + format.getExtension(), path, (plan, out) ->
+                    SeatExports.writeSeatMap(plan, format.newEncoder(out)));
+            case "2" -> submitExport("passenger list " + format.getExtension(), path, (plan, out) ->
+                    SeatExports.writePassengerList(plan, format.newEncoder(out)));
+            case "3" -> submitExport("occupancy stats " + format.getExtension(), path, (plan, out) ->
+                    SeatExports.writeClassStats(plan.calculateOccupancyStats(), format.newEncoder(out)));
+            case "4" -> {
+                String exportedFlight = flightId;
+                ChangeCursor from = since;
+                AtomicReference<ChangeCursor> next = new AtomicReference<>();
+                ExportJob job = submitExport("seat changes " + format.getExtension(), path, (plan, out) ->
+                        next.set(SeatExports.writeChanges(plan, from, format.newEncoder(out))));
+                // Resume from the new cursor only once the file is in place
+                if (job != null) {
+                    job.getCompletion().thenRun(() -> {
+                        exportedChanges.merge(exportedFlight, next.get(), ChangeCursor::max);
+                        log.info("Exported changes of flight {} after {}; next export resumes from {}",
+                                exportedFlight, from, next.get());
+                    });
+                }
+            }
+            default -> log.warn("Invalid choice. Please try again.");
+        }
+    }
+
+    /** @return the queued export, or {@code null} if it was rejected */
+    private ExportJob submitExport(String description, Path path, ExportService.Export export) {
         try {
-            String report = generatePassengerListReport();
-            Path path = Paths.get(filename);
-            Files.write(path, report.getBytes(StandardCharsets.UTF_8));
-            log.info("Successfully exported passenger list to: {}", path.toAbsolutePath());
-        } catch (IOException e) {
-            log.error("Failed to export passenger list: {}", e.getMessage());
+            ExportJob job = exportService.submit(description + " of flight " + flightId, seatPlan, path, export);
+            log.info("Export #{} started, writing to: {}", job.getId(), path.toAbsolutePath());
+            return job;
+        } catch (RejectedExecutionException e) {
+            log.error("Too many exports in progress, please try again later.");
+            return null;
         }
     }
-    
-    private String generatePassengerListReport() {
-        List<Seat> occupiedSeats = seatPlan.getOccupiedSeats();
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append("Flight Passenger List\n");
-        sb.append("Generated: ").append(LocalDateTime.now()).append("\n\n");
-        sb.append(String.format("%-6s %-8s %-20s %-15s %s\n", 
-                "Seat", "Class", "Passenger Name", "Ticket Number", "Special Requests"));
-        sb.append("──────────────────────────────────────────────────────────────\n");
-        
-        occupiedSeats.forEach(seat -> {
-            Booking booking = seat.getBooking();
-            sb.append(String.format("%-6s %-8s %-20s %-15s %s\n",
-                    seat.getRow() + seat.getSeatLetter(),
-                    seat.getSeatClass(),
-                    booking.passengerName(),
-                    booking.bookingNumber(),
-                    booking.specialRequests().isBlank() ? "-" : booking.specialRequests()));
-        });
-        
-        return sb.toString();
+
+    private void exportFleet(Scanner scanner) {
+        log.info("Export (1) one file per flight or (2) one merged file:");
+        String choice = scanner.nextLine().trim();
+        if (!choice.equals("1") && !choice.equals("2")) {
+            log.warn("Invalid choice. Please try again.");
+            return;
+        }
+        log.info(choice.equals("1") ? "Enter directory for the manifests:" : "Enter filename for the manifests:");
+        Path path = Paths.get(scanner.nextLine().trim());
+
+        boolean perFlight = choice.equals("1");
+        Path target = perFlight ? path : exportService.getCompression().fileFor(path);
+        LocalDateTime generated = LocalDateTime.now();
+        AtomicReference<FleetExporter.Result> result = new AtomicReference<>();
+        ExportJob job;
+        try {
+            job = exportService.submit(perFlight ? "fleet manifests per flight" : "merged fleet manifests", target,
+                    (running, compression) -> {
+                        try (FleetExporter exporter = new FleetExporter(flightRegistry)) {
+                            exporter.setCompression(compression);
+                            exporter.setTracker(running::track);
+                            result.set(perFlight ? exporter.exportPerFlight(path, generated)
+                                                 : exporter.exportMerged(path, generated));
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            log.error("Too many exports in progress, please try again later.");
+            return;
+        }
+        log.info("Export #{} started, writing to: {}", job.getId(), target.toAbsolutePath());
+        job.getCompletion().thenRun(() -> log.info("Exported {} to: {}", result.get(), target.toAbsolutePath()));
+    }
+
+    private void setExportCompression(Scanner scanner) {
+        log.info("Compression (none, gzip or deflate):");
+        ExportCompression.Codec codec;
+        try {
+            codec = ExportCompression.Codec.fromName(scanner.nextLine());
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return;
+        }
+        int level = Deflater.DEFAULT_COMPRESSION;
+        if (codec != ExportCompression.Codec.NONE) {
+            log.info("Compression level, 1 (fastest) to 9 (smallest), blank for default:");
+            String input = scanner.nextLine().trim();
+            try {
+                if (!input.isEmpty()) level = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                log.error("Invalid compression level: {}", input);
+                return;
+            }
+        }
+        try {
+            exportService.setCompression(new ExportCompression(codec, level));
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return;
+        }
+        log.info("Exports are now written with compression: {}", exportService.getCompression());
+    }
+
+    private void showExports(Scanner scanner) {
+        List<ExportJob> jobs = exportService.getJobs();
+        if (jobs.isEmpty()) {
+            log.info("No exports.");
+            return;
+        }
+        jobs.forEach(job -> log.info("{}", job));
+        log.info("Enter export number to cancel (blank to go back):");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) return;
+        try {
+            ExportJob job = exportService.get(Integer.parseInt(input.replace("#", "")));
+            if (job != null && job.cancel()) {
+                log.info("Cancelling export #{}", job.getId());
+            } else {
+                log.warn("No running export #{}", input);
+            }
+        } catch (NumberFormatException e) {
+            log.error("Invalid export number: {}", input);
+        }
     }
 
     public static void main(String[] args) {
-        new FlightSeatManagerApp().start();
+        new FlightSeatManagerApp(args.length > 0 ? args[0] : DEFAULT_FLIGHT_ID).start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+import java.io.IOException;
+
+/**
+ * JSON Lines: one JSON object per record and line, keyed by column name. Nothing is written for
+ * {@link #begin}, so files can be concatenated. {@code null} text is written as JSON {@code null}.
+ */
+public class JsonLinesEncoder implements RecordEncoder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final ReportWriter out;
+    private boolean firstField;
+
+    public JsonLinesEncoder(ReportWriter out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(String... columns) {
+    }
+
+    @Override
+    public void beginRecord() throws IOException {
+        out.text('{');
+        firstField = true;
+    }
+
+    @Override
+    public RecordEncoder field(String name, CharSequence value) throws IOException {
+        name(name);
+        if (value == null) {
+            out.text("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, long value) throws IOException {
+        name(name);
+        out.right(value, 0);
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, double value, int decimals) throws IOException {
+        name(name);
+        if (Double.isFinite(value)) {
+            out.right(value, decimals, 0);
+        } else {
+            out.text("null");
+        }
+        return this;
+    }
+
+    @Override
+    public RecordEncoder field(String name, boolean value) throws IOException {
+        name(name);
+        out.text(value ? "true" : "false");
+        return this;
+    }
+
+    @Override
+    public void endRecord() throws IOException {
+        out.text('}').newline();
+    }
+
+    private void name(String name) throws IOException {
+        if (!firstField) out.text(',');
+        firstField = false;
+        string(name);
+        out.text(':');
+    }
+
+    private void string(CharSequence value) throws IOException {
+        out.text('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.text("\\\"");
+                case '\\' -> out.text("\\\\");
+                case '\n' -> out.text("\\n");
+                case '\r' -> out.text("\\r");
+                case '\t' -> out.text("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.text("\\u00").text(HEX[c >> 4]).text(HEX[c & 0xF]);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        out.codePoint(Character.toCodePoint(c, value.charAt(++i)));
+                    } else {
+                        out.text(c);
+                    }
+                }
+            }
+        }
+        out.text('"');
+    }
+}
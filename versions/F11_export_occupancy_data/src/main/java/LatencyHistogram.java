@@ -0,0 +1,82 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets in the style of HdrHistogram:
+ * every power of two is split into 16 equal sub-buckets, so values are kept with a relative error
+ * below 1/16 over the whole {@code long} range in a fixed array of 960 counters. Recording is
+ * lock-free, a few atomic additions per value; a snapshot taken while other threads record may
+ * include part of a concurrent recording, e.g. its bucket but not yet its total.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;  // nanoTime is monotonic, but keep clock oddities out of the buckets
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(count, totalNanos.sum(), maxNanos.get(), copy);
+    }
+
+    // Values below 16 get a bucket each; above, the top five bits of the value pick the bucket
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long highestValueOf(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Recorded latencies at one moment. {@code counts} holds the number of values per bucket and
+     * {@code count} their sum.
+     */
+    public record Snapshot(long count, long totalNanos, long maxNanos, long[] counts) {
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Latency at or below which {@code percentile} percent of the values lie, reported as the
+         * highest value of its bucket and never above the maximum.
+         *
+         * @return the latency in nanoseconds, 0 if nothing was recorded
+         */
+        public long percentileNanos(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) return Math.min(highestValueOf(bucket), maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Layouts by aircraft type, each loaded once on first use. The loader runs outside the map, so a
+ * slow layout file never blocks other keys of a map bin; a layout being loaded is a pending future
+ * that concurrent callers wait for. A failed load is not kept, the next caller tries again.
+ */
+final class LayoutCache {
+    private final ConcurrentMap<String, CompletableFuture<SeatLayout>> layouts = new ConcurrentHashMap<>();
+    private final Function<String, SeatLayout> loader;
+
+    LayoutCache(Function<String, SeatLayout> loader) {
+        this.loader = loader;
+    }
+
+    SeatLayout get(String aircraftType) {
+        CompletableFuture<SeatLayout> layout = layouts.get(aircraftType);
+        if (layout == null) {
+            CompletableFuture<SeatLayout> loading = new CompletableFuture<>();
+            layout = layouts.putIfAbsent(aircraftType, loading);
+            if (layout == null) {
+                layout = loading;
+                try {
+                    loading.complete(loader.apply(aircraftType));
+                } catch (RuntimeException | Error e) {
+                    layouts.remove(aircraftType, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return layout.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
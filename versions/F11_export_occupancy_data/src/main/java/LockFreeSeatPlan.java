@@ -0,0 +1,351 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SeatPlan} whose seat operations are compare-and-set transitions on an
+ * {@link AtomicSeatStore} instead of row locks: read the seat, check its status, and publish the
+ * replacement only if nobody changed the seat in between, retrying otherwise.
+ * <p>
+ * Occupancy counters are adjusted by the exact transition each successful CAS performed, so they
+ * are exact whenever no operation is in flight. {@link #swapSeats} replaces both seats in one
+ * atomic step with {@link AtomicSeatStore#compareAndSetPair}, and {@link #bookGroup} books all seats
+ * of a group in one with {@link AtomicSeatStore#compareAndSetAll}. Methods returning seat lists are
+ * weakly consistent in this mode.
+ */
+public class LockFreeSeatPlan extends SeatPlan {
+    private static final Logger log = LoggerFactory.getLogger(LockFreeSeatPlan.class);
+    private final AtomicSeatStore store;
+    // Installed seats whose journal record was lost, each mapped to the seat it rolls back to, and
+    // seats put back by such a rollback, each mapped to the seat it stands for; see #rollBackLost.
+    // Guarded by lostChanges and cleared with every new journal.
+    private final Map<Seat, Seat> lostChanges = new IdentityHashMap<>();
+    private final Map<Seat, Seat> restoredSeats = new IdentityHashMap<>();
+
+    public LockFreeSeatPlan() {
+        this(SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900));
+    }
+
+    public LockFreeSeatPlan(SeatLayout layout) {
+        super(layout, AtomicSeatStore::new, Integer.MAX_VALUE);
+        this.store = (AtomicSeatStore) getStore();
+    }
+
+    @Override
+    public void setJournal(SeatJournal journal) {
+        synchronized (lostChanges) {
+            lostChanges.clear();
+            restoredSeats.clear();
+        }
+        super.setJournal(journal);
+    }
+
+    @Override
+    Seat readSeat(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        return index < 0 ? null : store.get(index);
+    }
+
+    /**
+     * Copies each seat from a single read of its slot, so status and passenger always match. Like
+     * the other list methods of this plan the copy is only weakly consistent across seats.
+     */
+    @Override
+    SeatPlan copy() {
+        byte[] statuses = new byte[store.size()];
+        Object[] payloads = new Object[store.size()];
+        long[] sequences = new long[store.size()];
+        // Seats copied below may carry later changes; a delta export of the copy then repeats them
+        long sequence = stampedChangeSequence();
+        for (int index = 0; index < statuses.length; index++) {
+            sequences[index] = getSeatSequence(index);
+            Seat seat = store.get(index);
+            statuses[index] = (byte) seat.getStatus().ordinal();
+            payloads[index] = seat.getBooking() != null ? seat.getBooking() : seat.getReservation();
+        }
+        return copyOf(statuses, payloads, sequences, sequence);
+    }
+
+    @Override
+    boolean book(int row, String seatLetter, Booking booking) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(booking, null);
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.AVAILABLE) return false;
+            Seat installed = compareAndTransition(index, current, SeatStatus.OCCUPIED, booking, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.BOOK, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.BOOK, index, SeatStatus.AVAILABLE, SeatStatus.OCCUPIED);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean reserve(int row, String seatLetter, Reservation reservation) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(null, reservation);
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.AVAILABLE) return false;
+            Seat installed = compareAndTransition(index, current, SeatStatus.RESERVED, null, reservation);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.RESERVE, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.RESERVE, index, SeatStatus.AVAILABLE, SeatStatus.RESERVED);
+                trackReservation(index, reservation);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean confirm(int row, String seatLetter, String bookingNumber) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.RESERVED) return false;
+
+            Reservation res = current.getReservation();
+            Booking booking = new Booking(res.passengerName(), bookingNumber, res.specialRequests());
+            checkJournal(booking, null);
+            Seat installed = compareAndTransition(index, current, SeatStatus.OCCUPIED, booking, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.CONFIRM, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.CONFIRM, index, SeatStatus.RESERVED, SeatStatus.OCCUPIED);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean cancel(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(null, null);
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.RESERVED && current.getStatus() != SeatStatus.OCCUPIED) return false;
+            Seat installed = compareAndTransition(index, current, SeatStatus.AVAILABLE, null, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.CANCEL, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.CANCEL, index, current.getStatus(), SeatStatus.AVAILABLE);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean block(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(null, null);
+        while (true) {
+            Seat current = store.get(index);
+            Seat installed = compareAndTransition(index, current, SeatStatus.BLOCKED, null, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.BLOCK, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.BLOCK, index, current.getStatus(), SeatStatus.BLOCKED);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean release(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(null, null);
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.BLOCKED) return false;
+            Seat installed = compareAndTransition(index, current, SeatStatus.AVAILABLE, null, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.RELEASE, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.RELEASE, index, SeatStatus.BLOCKED, SeatStatus.AVAILABLE);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    boolean swap(int row1, String seatLetter1, int row2, String seatLetter2) {
+        int index1 = indexOf(row1, seatLetter1);
+        int index2 = indexOf(row2, seatLetter2);
+        if (index1 < 0 || index2 < 0 || index1 == index2) return false;
+
+        SeatTransitionEvent event1 = new SeatTransitionEvent();
+        SeatTransitionEvent event2 = new SeatTransitionEvent();
+        event1.begin();
+        event2.begin();
+        checkJournal(null, null);
+        while (true) {
+            Seat seat1 = store.get(index1);
+            Seat seat2 = store.get(index2);
+            SeatStatus status = seat1.getStatus();
+            if (status != seat2.getStatus()) return false;
+            if (status != SeatStatus.OCCUPIED && status != SeatStatus.RESERVED) return false;
+
+            // Both seats keep their status, so counters and status bits stay as they are
+            Seat swapped1 = withPayloadOf(seat1, seat2);
+            Seat swapped2 = withPayloadOf(seat2, seat1);
+            if (!store.compareAndSetPair(index1, seat1, swapped1, index2, seat2, swapped2)) continue;
+            stampChange(index1);
+            stampChange(index2);
+            SeatJournal journal = getJournal();
+            if (journal != null) {
+                recordDurably(journal, SeatJournal.Operation.SWAP, new int[]{index1, index2},
+                              new Seat[]{seat1, seat2}, new Seat[]{swapped1, swapped2});
+            }
+            event1.commit(getLayout(), SeatJournal.Operation.SWAP, index1, status, status);
+            event2.commit(getLayout(), SeatJournal.Operation.SWAP, index2, status, status);
+            if (status == SeatStatus.RESERVED) {
+                trackReservation(index1, seat2.getReservation());
+                trackReservation(index2, seat1.getReservation());
+            }
+            return true;
+        }
+    }
+
+    @Override
+    List<Seat> bookGroupSeats(int[] indices, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            checkJournal(booking, null);
+        }
+        Seat[] previous = new Seat[indices.length];
+        Seat[] booked = new Seat[indices.length];
+        SeatTransitionEvent[] events = SeatTransitionEvent.beginGroup(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            previous[i] = store.get(indices[i]);
+            if (previous[i].getStatus() != SeatStatus.AVAILABLE) return null;
+            booked[i] = previous[i].withState(SeatStatus.OCCUPIED, bookings.get(i), null);
+        }
+        if (!store.compareAndSetAll(indices, previous, booked)) return null;
+        for (int i = 0; i < indices.length; i++) {
+            applyTransition(indices[i], previous[i], SeatStatus.OCCUPIED);
+        }
+        SeatJournal journal = getJournal();
+        if (journal != null) {
+            recordDurably(journal, SeatJournal.Operation.BOOK_GROUP, indices, previous, booked);
+        }
+        SeatTransitionEvent.commitGroup(events, getLayout(), indices);
+        return List.of(booked);
+    }
+
+    @Override
+    boolean expire(int index, Reservation reservation) {
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        checkJournal(null, null);
+        while (true) {
+            Seat current = store.get(index);
+            if (current.getStatus() != SeatStatus.RESERVED || current.getReservation() != reservation) return false;
+            Seat installed = compareAndTransition(index, current, SeatStatus.AVAILABLE, null, null);
+            if (installed != null) {
+                recordDurably(SeatJournal.Operation.EXPIRE, index, current, installed);
+                event.commit(getLayout(), SeatJournal.Operation.EXPIRE, index, SeatStatus.RESERVED, SeatStatus.AVAILABLE);
+                return true;
+            }
+        }
+    }
+
+    /** Throws what appending a record with {@code booking} or {@code reservation} would throw. */
+    private void checkJournal(Booking booking, Reservation reservation) {
+        SeatJournal journal = getJournal();
+        if (journal != null) journal.checkAppendable(booking, reservation);
+    }
+
+    /** Records the seat after a successful CAS from {@code previous} to {@code installed}. */
+    private void recordDurably(SeatJournal.Operation operation, int index, Seat previous, Seat installed) {
+        SeatJournal journal = getJournal();
+        if (journal == null) return;
+        recordDurably(journal, operation, new int[]{index}, new Seat[]{previous}, new Seat[]{installed});
+    }
+
+    /**
+     * Records the seats after a successful CAS. The record reads the seats' latest state inside the
+     * journal, so if two transitions of a seat are recorded out of order the later record still
+     * carries the final state. If the record cannot be appended or is lost with the journal, the
+     * seats are rolled back before the exception is rethrown.
+     */
+    private void recordDurably(SeatJournal journal, SeatJournal.Operation operation, int[] indices,
+                               Seat[] previous, Seat[] installed) {
+        try {
+            journal.commit(journal.append(operation, store, indices));
+        } catch (RuntimeException e) {
+            rollBackLost(indices, previous, installed);
+            throw e;
+        }
+    }
+
+    /**
+     * Rolls back seats whose record was not journaled. Records of lock-free changes may be appended
+     * out of order, so a seat is only rolled back while it still holds the lost change; if a later
+     * change replaced it, that one was either journaled, and its record carries the seat's final
+     * state, or is lost as well and rolls back past this one through {@link #lostChanges}. The seats
+     * of a swap are rolled back one after the other.
+     */
+    private void rollBackLost(int[] indices, Seat[] previous, Seat[] installed) {
+        synchronized (lostChanges) {
+            for (int i = 0; i < indices.length; i++) {
+                Seat target = restoredSeats.getOrDefault(previous[i], previous[i]);
+                Seat earlier;
+                while ((earlier = lostChanges.get(target)) != null) target = earlier;
+                lostChanges.put(installed[i], target);
+
+                Seat current = store.get(indices[i]);
+                if (current != installed[i] && restoredSeats.get(current) != installed[i]) continue;
+                Seat restored = compareAndTransition(indices[i], current, target.getStatus(),
+                                                     target.getBooking(), target.getReservation());
+                if (restored == null) continue;
+                restoredSeats.put(restored, target);
+                if (target.getReservation() != null) trackReservation(indices[i], target.getReservation());
+            }
+        }
+        log.warn("Rolled back {} seat change(s) whose journal record was lost", indices.length);
+    }
+
+    /** @return the seat that was installed, or {@code null} if {@code current} was replaced first */
+    private Seat compareAndTransition(int index, Seat current, SeatStatus status,
+                                      Booking booking, Reservation reservation) {
+        Seat updated = current.withState(status, booking, reservation);
+        if (!store.compareAndSet(index, current, updated)) return null;
+        applyTransition(index, current, status);
+        return updated;
+    }
+
+    /** Brings counters, change sequences and status bits up to a CAS that replaced {@code current}. */
+    private void applyTransition(int index, Seat current, SeatStatus status) {
+        countTransition(current.getSeatClass(), current.getStatus(), status);
+        stampChange(index);
+        // Two threads may finish transitions of the same seat in either order, so the status bits
+        // are rewritten from the seat until they were applied for its latest version
+        Seat applied;
+        do {
+            applied = store.get(index);
+            getBitsets().setStatus(index, applied.getStatus());
+        } while (store.get(index) != applied);
+    }
+
+    private static Seat withPayloadOf(Seat seat, Seat other) {
+        return seat.withState(seat.getStatus(), other.getBooking(), other.getReservation());
+    }
+}
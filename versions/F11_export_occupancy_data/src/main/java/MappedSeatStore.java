@@ -0,0 +1,326 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Seat storage backed by a memory-mapped file per flight, so a plan opens without deserializing
+ * anything and every change lands in the OS page cache as it is made. File layout:
+ * <pre>
+ *   header    int magic, short version, short unused, int seat count, int records end,
+ *             32 bytes aircraft type (US-ASCII, zero padded)
+ *   statuses  one byte per seat
+ *   offsets   one int per seat: file offset of the seat's passenger record, 0 for none
+ *   records   append-only passenger records: short length, byte kind, payload
+ *             (booking or reservation, see {@link SeatStateCodec})
+ * </pre>
+ * Replaced records stay behind as dead space until the file is opened again, when the record
+ * region is compacted if less than half of it is live. The file doubles when the record region is
+ * full. Changes survive a crash of the process; use {@link #force} or a {@link SeatJournal} for
+ * machine crashes. Status bytes and record offsets are validated when the file is opened. Seat
+ * geometry comes from the {@link SeatLayout}.
+ * <p>
+ * Only the seat state lives in the file. A {@link SeatPlan} on this store still rebuilds its
+ * availability bitsets and occupancy counters on the heap from the status bytes when it is
+ * created, and searches and statistics run against those. The plan owns the store: closing the
+ * plan forces the file and closes its channel.
+ */
+public class MappedSeatStore implements SeatStore {
+    private static final Logger log = LoggerFactory.getLogger(MappedSeatStore.class);
+    static final int MAGIC = 0x534D4150;  // "SMAP"
+    static final short VERSION = 1;
+    private static final int SEAT_COUNT_OFFSET = 8;
+    private static final int RECORDS_END_OFFSET = 12;
+    private static final int AIRCRAFT_TYPE_OFFSET = 16;
+    private static final int AIRCRAFT_TYPE_LENGTH = 32;
+    private static final int HEADER_SIZE = AIRCRAFT_TYPE_OFFSET + AIRCRAFT_TYPE_LENGTH;
+    private static final int INITIAL_RECORD_BYTES_PER_SEAT = 64;
+    private static final byte BOOKING_RECORD = 1;
+    private static final byte RESERVATION_RECORD = 2;
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final SeatLayout layout;
+    private final int seatCount;
+    private final int offsetsStart;
+    private final int recordsStart;
+    // Replaced by a larger mapping when the file grows; old mappings see the same pages
+    private volatile MappedByteBuffer mapped;
+    // Guarded by this
+    private int recordsEnd;
+
+    private MappedSeatStore(Path file, FileChannel channel, SeatLayout layout) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.layout = layout;
+        this.seatCount = layout.getSeatCount();
+        this.offsetsStart = (HEADER_SIZE + seatCount + Integer.BYTES - 1) & -Integer.BYTES;
+        this.recordsStart = offsetsStart + seatCount * Integer.BYTES;
+
+        if (channel.size() == 0) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                 recordsStart + (long) seatCount * INITIAL_RECORD_BYTES_PER_SEAT);
+            mapped.putInt(0, MAGIC).putShort(4, VERSION).putInt(SEAT_COUNT_OFFSET, seatCount);
+            byte[] type = layout.getAircraftType().getBytes(StandardCharsets.US_ASCII);
+            mapped.put(AIRCRAFT_TYPE_OFFSET, type, 0, Math.min(type.length, AIRCRAFT_TYPE_LENGTH));
+            recordsEnd = recordsStart;
+            mapped.putInt(RECORDS_END_OFFSET, recordsEnd);
+        } else {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            validateHeader();
+            recordsEnd = mapped.getInt(RECORDS_END_OFFSET);
+            validateSeats();
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Opens the seat map of one flight, creating it with every seat available if the file does not
+     * exist yet.
+     *
+     * @throws IllegalStateException if the file holds the seat map of a different layout
+     */
+    public static MappedSeatStore open(Path file, SeatLayout layout) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedSeatStore(file, channel, layout);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Store factory for {@link SeatPlan} that opens {@code file}. */
+    public static Function<SeatLayout, SeatStore> factory(Path file) {
+        return layout -> {
+            try {
+                return open(file, layout);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open seat map " + file, e);
+            }
+        };
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public int size() {
+        return seatCount;
+    }
+
+    @Override
+    public Seat get(int index) {
+        SeatStatus status = getStatus(index);
+        return layout.seatAt(index, status,
+                             status == SeatStatus.OCCUPIED ? getBooking(index) : null,
+                             status == SeatStatus.RESERVED ? getReservation(index) : null);
+    }
+
+    @Override
+    public SeatStatus getStatus(int index) {
+        // Only update writes status bytes after validateSeats checked them on open
+        return STATUSES[mapped.get(HEADER_SIZE + index)];
+    }
+
+    @Override
+    public Booking getBooking(int index) {
+        ByteBuffer record = record(index, BOOKING_RECORD);
+        return record == null ? null : SeatStateCodec.getBooking(record);
+    }
+
+    @Override
+    public Reservation getReservation(int index) {
+        ByteBuffer record = record(index, RESERVATION_RECORD);
+        return record == null ? null : SeatStateCodec.getReservation(record);
+    }
+
+    @Override
+    public void update(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        int offset = 0;
+        if (booking != null || reservation != null) {
+            offset = appendRecord(booking != null ? BOOKING_RECORD : RESERVATION_RECORD, status, booking, reservation);
+        }
+        MappedByteBuffer buffer = mapped;
+        buffer.putInt(offsetsStart + index * Integer.BYTES, offset);
+        buffer.put(HEADER_SIZE + index, (byte) status.ordinal());
+    }
+
+    @Override
+    public int getRow(int index) {
+        return layout.getRow(index);
+    }
+
+    @Override
+    public SeatClass getSeatClass(int index) {
+        return layout.getSeatClass(index);
+    }
+
+    @Override
+    public SeatPosition getPosition(int index) {
+        return layout.getPosition(index);
+    }
+
+    @Override
+    public boolean isExitRow(int index) {
+        return layout.isExitRow(index);
+    }
+
+    @Override
+    public void force() {
+        mapped.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** @return the payload of the seat's record if it is of {@code kind}, otherwise {@code null} */
+    private ByteBuffer record(int index, byte kind) {
+        MappedByteBuffer buffer = mapped;
+        int offset = buffer.getInt(offsetsStart + index * Integer.BYTES);
+        if (offset == 0 || buffer.get(offset + Short.BYTES) != kind) return null;
+        return buffer.duplicate().position(offset + Short.BYTES + 1);
+    }
+
+    private synchronized int appendRecord(byte kind, SeatStatus status, Booking booking, Reservation reservation) {
+        while (true) {
+            MappedByteBuffer buffer = mapped;
+            ByteBuffer target = buffer.duplicate().position(recordsEnd + Short.BYTES);
+            try {
+                target.put(kind);
+                SeatStateCodec.putPayload(target, status, booking, reservation);
+            } catch (BufferOverflowException e) {
+                grow();
+                continue;
+            }
+            int offset = recordsEnd;
+            int length = target.position() - offset;
+            if (length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Passenger record of " + length + " bytes is too large");
+            }
+            buffer.putShort(offset, (short) length);
+            recordsEnd = target.position();
+            buffer.putInt(RECORDS_END_OFFSET, recordsEnd);
+            return offset;
+        }
+    }
+
+    // Caller holds this
+    private void grow() {
+        long size = (long) mapped.capacity() * 2;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Seat map " + file + " exceeds 2 GB");
+        }
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow seat map " + file, e);
+        }
+        log.debug("Grew seat map {} to {} KB", file, size / 1024);
+    }
+
+    private void validateHeader() throws IOException {
+        if (mapped.capacity() < recordsStart || mapped.getInt(0) != MAGIC || mapped.getShort(4) != VERSION) {
+            throw new IOException(file + " is not a seat map");
+        }
+        byte[] type = new byte[AIRCRAFT_TYPE_LENGTH];
+        mapped.get(AIRCRAFT_TYPE_OFFSET, type);
+        String aircraftType = new String(type, StandardCharsets.US_ASCII).trim();
+        int storedSeats = mapped.getInt(SEAT_COUNT_OFFSET);
+        if (!layout.getAircraftType().equals(aircraftType) || storedSeats != seatCount) {
+            throw new IllegalStateException("Seat map " + file + " holds " + storedSeats + " seats of "
+                    + aircraftType + ", expected " + layout.getAircraftType());
+        }
+        int end = mapped.getInt(RECORDS_END_OFFSET);
+        if (end < recordsStart || end > mapped.capacity()) {
+            throw new IOException(file + " is damaged");
+        }
+    }
+
+    /**
+     * Checks every status byte and that every booked or reserved seat points to a record of its
+     * kind inside the record region, so reads never index past the statuses or decode garbage.
+     */
+    private void validateSeats() throws IOException {
+        for (int index = 0; index < seatCount; index++) {
+            byte status = mapped.get(HEADER_SIZE + index);
+            if (status < 0 || status >= STATUSES.length) {
+                throw new IOException(file + " is damaged: seat " + index + " has status " + status);
+            }
+            int offset = mapped.getInt(offsetsStart + index * Integer.BYTES);
+            if (offset == 0) {
+                if (STATUSES[status] == SeatStatus.OCCUPIED || STATUSES[status] == SeatStatus.RESERVED) {
+                    throw new IOException(file + " is damaged: " + STATUSES[status] + " seat " + index
+                            + " has no passenger record");
+                }
+                continue;
+            }
+            int minLength = Short.BYTES + 1;
+            if (offset < recordsStart || offset > recordsEnd - minLength
+                    || mapped.getShort(offset) < minLength || offset + mapped.getShort(offset) > recordsEnd) {
+                throw new IOException(file + " is damaged: record of seat " + index + " at " + offset
+                        + " is outside the record region");
+            }
+            byte kind = mapped.get(offset + Short.BYTES);
+            if (STATUSES[status] == SeatStatus.OCCUPIED && kind != BOOKING_RECORD
+                    || STATUSES[status] == SeatStatus.RESERVED && kind != RESERVATION_RECORD) {
+                throw new IOException(file + " is damaged: " + STATUSES[status] + " seat " + index
+                        + " has a record of kind " + kind);
+            }
+        }
+    }
+
+    /** Rewrites the record region without dead records if they take more than half of it. */
+    private void compactIfSparse() {
+        int live = 0;
+        for (int index = 0; index < seatCount; index++) {
+            int offset = mapped.getInt(offsetsStart + index * Integer.BYTES);
+            if (offset != 0) live += mapped.getShort(offset);
+        }
+        int used = recordsEnd - recordsStart;
+        if (live * 2 >= used) return;
+
+        // Records keep their order, so each one moves down and never overwrites a record still to be moved
+        int target = recordsStart;
+        int[] offsets = new int[seatCount];
+        Integer[] order = new Integer[seatCount];
+        for (int index = 0; index < seatCount; index++) {
+            offsets[index] = mapped.getInt(offsetsStart + index * Integer.BYTES);
+            order[index] = index;
+        }
+        Arrays.sort(order, Comparator.comparingInt(index -> offsets[index]));
+        byte[] copy = new byte[Short.MAX_VALUE];
+        for (int index : order) {
+            int offset = offsets[index];
+            if (offset == 0) continue;
+            int length = mapped.getShort(offset);
+            mapped.get(offset, copy, 0, length);
+            mapped.put(target, copy, 0, length);
+            mapped.putInt(offsetsStart + index * Integer.BYTES, target);
+            target += length;
+        }
+        recordsEnd = target;
+        mapped.putInt(RECORDS_END_OFFSET, recordsEnd);
+        log.info("Compacted seat map {} from {} to {} record bytes", file, used, live);
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps one immutable {@link Seat} per seat and replaces it on every state change.
+ */
+public class ObjectSeatStore implements SeatStore {
+    private final List<Seat> seats = new ArrayList<>();
+
+    public ObjectSeatStore(SeatLayout layout) {
+        for (int index = 0; index < layout.getSeatCount(); index++) {
+            seats.add(layout.seatAt(index, SeatStatus.AVAILABLE, null, null));
+        }
+    }
+
+    @Override
+    public int size() {
+        return seats.size();
+    }
+
+    @Override
+    public Seat get(int index) {
+        return seats.get(index);
+    }
+
+    @Override
+    public int getRow(int index) {
+        return seats.get(index).getRow();
+    }
+
+    @Override
+    public SeatClass getSeatClass(int index) {
+        return seats.get(index).getSeatClass();
+    }
+
+    @Override
+    public SeatPosition getPosition(int index) {
+        return seats.get(index).getPosition();
+    }
+
+    @Override
+    public boolean isExitRow(int index) {
+        return seats.get(index).isExitRow();
+    }
+
+    @Override
+    public SeatStatus getStatus(int index) {
+        return seats.get(index).getStatus();
+    }
+
+    @Override
+    public Booking getBooking(int index) {
+        return seats.get(index).getBooking();
+    }
+
+    @Override
+    public Reservation getReservation(int index) {
+        return seats.get(index).getReservation();
+    }
+
+    @Override
+    public void update(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        seats.set(index, seats.get(index).withState(status, booking, reservation));
+    }
+}
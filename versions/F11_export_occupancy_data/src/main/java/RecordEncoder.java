@@ -0,0 +1,25 @@
+import java.io.IOException;
+
+/**
+ * Streams flat records into a {@link ReportWriter} in one machine-readable format. An export calls
+ * {@link #begin} once with the column names, then per record {@link #beginRecord}, one
+ * {@code field} call per column in column order, and {@link #endRecord}. Values are encoded
+ * straight into the writer's buffer without building a {@code String} per record.
+ */
+public interface RecordEncoder {
+    void begin(String... columns) throws IOException;
+
+    void beginRecord() throws IOException;
+
+    /** Writes a text field; {@code null} is written as the format's empty value. */
+    RecordEncoder field(String name, CharSequence value) throws IOException;
+
+    RecordEncoder field(String name, long value) throws IOException;
+
+    /** Writes a decimal with a fixed number of fractional digits. */
+    RecordEncoder field(String name, double value, int decimals) throws IOException;
+
+    RecordEncoder field(String name, boolean value) throws IOException;
+
+    void endRecord() throws IOException;
+}
@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered UTF-8 text writer for fixed-width reports. Values are encoded straight into one reusable
+ * byte buffer, which is written to the channel whenever it fills up, so memory use does not depend
+ * on the report size and no intermediate {@code String} is built per line.
+ * <p>
+ * The padding methods behave like the {@code %-Ns}, {@code %Nd} and {@code %N.Df} conversions of
+ * {@link String#format}: values longer than the width are written in full. Decimals are always
+ * written with a '.' and rounded half up.
+ */
+public class ReportWriter implements AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private long bytesWritten;
+
+    public ReportWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ReportWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 8));
+    }
+
+    public ReportWriter text(CharSequence value) throws IOException {
+        if (value == null) value = "null";
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                codePoint(c);
+            }
+        }
+        return this;
+    }
+
+    public ReportWriter text(char value) throws IOException {
+        return codePoint(value);
+    }
+
+    public ReportWriter newline() throws IOException {
+        return text('\n');
+    }
+
+    /** Writes {@code value} left-aligned, padded with spaces to {@code width} characters. */
+    public ReportWriter left(CharSequence value, int width) throws IOException {
+        if (value == null) value = "null";
+        text(value);
+        return spaces(width - value.length());
+    }
+
+    /** Writes {@code value} right-aligned in {@code width} characters. */
+    public ReportWriter right(long value, int width) throws IOException {
+        int length = formatDigits(Math.abs(value));
+        boolean negative = value < 0;
+        spaces(width - length - (negative ? 1 : 0));
+        if (negative) text('-');
+        return digits(length);
+    }
+
+    /** Writes {@code value} with {@code decimals} fractional digits, right-aligned in {@code width} characters. */
+    public ReportWriter right(double value, int decimals, int width) throws IOException {
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        boolean negative = value < 0 && scaled != 0;
+        int integerLength = formatDigits(scaled / scale);
+        spaces(width - integerLength - (decimals > 0 ? decimals + 1 : 0) - (negative ? 1 : 0));
+        if (negative) text('-');
+        digits(integerLength);
+        if (decimals > 0) {
+            text('.');
+            long fraction = scaled % scale;
+            for (long divisor = scale / 10; divisor > 0; divisor /= 10) {
+                put((byte) ('0' + fraction / divisor % 10));
+            }
+        }
+        return this;
+    }
+
+    public ReportWriter spaces(int count) throws IOException {
+        for (int i = 0; i < count; i++) put((byte) ' ');
+        return this;
+    }
+
+    /** Number of bytes handed to the channel so far, including buffered ones. */
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Flushes and closes the channel. */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Writes the digits of a non-negative value to the end of the scratch array
+    private int formatDigits(long value) {
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return digits.length - position;
+    }
+
+    private ReportWriter digits(int length) throws IOException {
+        for (int i = digits.length - length; i < digits.length; i++) put(digits[i]);
+        return this;
+    }
+
+    /** Writes one Unicode code point; an unpaired surrogate is written as '?'. */
+    public ReportWriter codePoint(int c) throws IOException {
+        if (Character.isBmpCodePoint(c) && Character.isSurrogate((char) c)) {
+            c = '?';  // unpaired surrogate, replaced like String.getBytes does
+        }
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (c < 0x10000) {
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        } else {
+            put((byte) (0xF0 | c >> 18));
+            put((byte) (0x80 | c >> 12 & 0x3F));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        }
+        return this;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+    }
+}
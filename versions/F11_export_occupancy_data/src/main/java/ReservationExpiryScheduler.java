@@ -0,0 +1,96 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases expired reservations of a {@link SeatPlan} on a background thread. The scheduler only
+ * wakes up when the earliest reservation deadline is reached instead of polling the plan.
+ * Schedulers of many plans can share one executor, see {@link FlightRegistry}.
+ */
+public class ReservationExpiryScheduler implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryScheduler.class);
+    private final SeatPlan seatPlan;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private ScheduledFuture<?> pendingSweep;
+    private Instant pendingSweepAt;
+    private boolean closed;
+
+    public ReservationExpiryScheduler(SeatPlan seatPlan) {
+        this(seatPlan, newExecutor(), true);
+    }
+
+    /** Runs sweeps on {@code executor}, which stays open when this scheduler is closed. */
+    public ReservationExpiryScheduler(SeatPlan seatPlan, ScheduledExecutorService executor) {
+        this(seatPlan, executor, false);
+    }
+
+    private ReservationExpiryScheduler(SeatPlan seatPlan, ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.seatPlan = seatPlan;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        seatPlan.setReservationDeadlineListener(this::schedule);
+        schedule(seatPlan.getNextReservationDeadline());
+    }
+
+    /** Makes sure a sweep runs no later than {@code deadline}. */
+    public synchronized void schedule(Instant deadline) {
+        if (deadline == null || closed || executor.isShutdown()) return;
+        if (pendingSweepAt != null && !pendingSweepAt.isAfter(deadline)) return;
+
+        if (pendingSweep != null) {
+            pendingSweep.cancel(false);
+        }
+        // Reservations expire once their deadline has passed, so wake up just after it
+        long delayMillis = Math.max(0, Duration.between(Instant.now(), deadline).toMillis() + 1);
+        pendingSweep = executor.schedule(this::sweep, delayMillis, TimeUnit.MILLISECONDS);
+        pendingSweepAt = deadline;
+    }
+
+    public int getPendingReservationCount() {
+        return seatPlan.getPendingReservationCount();
+    }
+
+    public Instant getNextDeadline() {
+        return seatPlan.getNextReservationDeadline();
+    }
+
+    private void sweep() {
+        synchronized (this) {
+            pendingSweep = null;
+            pendingSweepAt = null;
+        }
+        try {
+            seatPlan.releaseExpiredReservations();
+        } catch (RuntimeException e) {
+            log.error("Failed to release expired reservations", e);
+        }
+        schedule(seatPlan.getNextReservationDeadline());
+    }
+
+    static ScheduledExecutorService newExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        seatPlan.setReservationDeadlineListener(deadline -> { });
+        if (pendingSweep != null) {
+            pendingSweep.cancel(false);
+        }
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one {@link SeatPlan#releaseExpiredReservations} sweep. Sweeps taking
+ * less than the threshold, 10 ms by default, are not recorded.
+ */
+@Name("seatplan.ReservationExpirySweep")
+@Label("Reservation Expiry Sweep")
+@Category("Seat Plan")
+@Description("A sweep freeing the seats of reservations whose expiration time has passed")
+@Threshold("10 ms")
+public class ReservationExpirySweepEvent extends Event {
+    @Label("Aircraft Type")
+    String aircraftType;
+    @Label("Due Reservations")
+    @Description("Reservation holds that were due, including those confirmed or cancelled in the meantime")
+    int due;
+    @Label("Expired Reservations")
+    int expired;
+}
@@ -0,0 +1,68 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks over the rows of a {@link SeatPlan}. Consecutive rows share a stripe; with a
+ * single stripe this is one plan-wide lock. Whenever more than one stripe is taken they are
+ * acquired in ascending order, so callers cannot deadlock each other.
+ */
+public class RowLocks {
+    private final ReentrantLock[] stripes;
+    private final int rowsPerStripe;
+
+    public RowLocks(int rowCount, int rowsPerStripe) {
+        if (rowsPerStripe < 1) {
+            throw new IllegalArgumentException("rowsPerStripe must be positive: " + rowsPerStripe);
+        }
+        this.rowsPerStripe = rowsPerStripe;
+        this.stripes = new ReentrantLock[(rowCount - 1) / rowsPerStripe + 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public void lock(int row) {
+        stripes[stripeOf(row)].lock();
+    }
+
+    public void unlock(int row) {
+        stripes[stripeOf(row)].unlock();
+    }
+
+    public void lockPair(int row1, int row2) {
+        int first = Math.min(stripeOf(row1), stripeOf(row2));
+        int second = Math.max(stripeOf(row1), stripeOf(row2));
+        stripes[first].lock();
+        if (second != first) {
+            stripes[second].lock();
+        }
+    }
+
+    public void unlockPair(int row1, int row2) {
+        int first = Math.min(stripeOf(row1), stripeOf(row2));
+        int second = Math.max(stripeOf(row1), stripeOf(row2));
+        if (second != first) {
+            stripes[second].unlock();
+        }
+        stripes[first].unlock();
+    }
+
+    public void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    public void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private int stripeOf(int row) {
+        return row / rowsPerStripe;
+    }
+}
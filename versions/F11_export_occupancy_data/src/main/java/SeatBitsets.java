@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * One bit per seat of a {@link SeatStore} for every status, class, position and for exit rows.
+ * Filters combine the matching bitsets one 64-seat word at a time.
+ * Class, position and exit bits never change and are shared through the {@link SeatLayout};
+ * status bits follow {@link #moveStatus} and are updated atomically so seats in different row
+ * stripes can change at the same time.
+ */
+public class SeatBitsets {
+    private final int words;
+    private final AtomicLongArray[] byStatus = new AtomicLongArray[SeatStatus.values().length];
+    private final SeatLayout layout;
+
+    public SeatBitsets(SeatLayout layout, SeatStore seats) {
+        this.layout = layout;
+        words = (seats.size() + 63) >>> 6;
+        for (int i = 0; i < byStatus.length; i++) byStatus[i] = new AtomicLongArray(words);
+        for (int index = 0; index < seats.size(); index++) {
+            set(byStatus[seats.getStatus(index).ordinal()], index);
+        }
+    }
+
+    public void moveStatus(int index, SeatStatus from, SeatStatus to) {
+        clear(byStatus[from.ordinal()], index);
+        set(byStatus[to.ordinal()], index);
+    }
+
+    /** Sets the seat's bit for {@code status} and clears it for every other status. */
+    public void setStatus(int index, SeatStatus status) {
+        for (SeatStatus other : SeatStatus.values()) {
+            if (other != status) {
+                clear(byStatus[other.ordinal()], index);
+            }
+        }
+        set(byStatus[status.ordinal()], index);
+    }
+
+    /**
+     * Returns the {@code status} bits of {@code width} consecutive seats starting at {@code offset},
+     * first seat in the lowest bit. Used to look at one row at a time.
+     */
+    public long statusBits(SeatStatus status, int offset, int width) {
+        AtomicLongArray bits = byStatus[status.ordinal()];
+        int word = offset >>> 6;
+        int shift = offset & 63;
+        long value = bits.get(word) >>> shift;
+        if (shift + width > 64) {
+            value |= bits.get(word + 1) << (64 - shift);
+        }
+        return width == 64 ? value : value & ((1L << width) - 1);
+    }
+
+    /** Counts seats in {@code status} matching the optional class/position filters. */
+    public int count(SeatStatus status, SeatClass seatClass, SeatPosition position, boolean exitOnly) {
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            count += Long.bitCount(match(word, status, seatClass, position, exitOnly));
+        }
+        return count;
+    }
+
+    /** Passes the index of every matching seat to {@code action}, in plan order. */
+    public void forEach(SeatStatus status, SeatClass seatClass, SeatPosition position, boolean exitOnly,
+                        IntConsumer action) {
+        for (int word = 0; word < words; word++) {
+            long bits = match(word, status, seatClass, position, exitOnly);
+            while (bits != 0) {
+                action.accept(word << 6 | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private long match(int word, SeatStatus status, SeatClass seatClass, SeatPosition position, boolean exitOnly) {
+        long bits = byStatus[status.ordinal()].get(word);
+        if (seatClass != null) bits &= layout.getClassBits(seatClass)[word];
+        if (position != null) bits &= layout.getPositionBits(position)[word];
+        if (exitOnly) bits &= layout.getExitRowBits()[word];
+        return bits;
+    }
+
+    private static void set(AtomicLongArray bits, int index) {
+        bits.getAndAccumulate(index >>> 6, 1L << index, (word, mask) -> word | mask);
+    }
+
+    private static void clear(AtomicLongArray bits, int index) {
+        bits.getAndAccumulate(index >>> 6, ~(1L << index), (word, mask) -> word & mask);
+    }
+}
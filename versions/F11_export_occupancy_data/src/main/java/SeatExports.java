@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Machine-readable exports of a seat plan, one record per seat or seat class, written through any
+ * {@link RecordEncoder}. Seats are encoded as they are read from the plan, row by row.
+ */
+public final class SeatExports {
+    static final String[] SEAT_MAP_COLUMNS = {"row", "seat", "class", "position", "exitRow", "status",
+            "passengerName", "bookingNumber", "reservationId", "expiresAt", "specialRequests"};
+    static final String[] CHANGE_COLUMNS = {"sequence", "row", "seat", "class", "position", "exitRow", "status",
+            "passengerName", "bookingNumber", "reservationId", "expiresAt", "specialRequests"};
+    static final String[] PASSENGER_COLUMNS = {"row", "seat", "class", "passengerName", "bookingNumber",
+            "specialRequests"};
+    static final String[] CLASS_STATS_COLUMNS = {"class", "totalSeats", "available", "occupied", "reserved",
+            "blocked", "occupancyPercentage"};
+
+    private SeatExports() {
+    }
+
+    /** Writes every seat with its status and the booking or reservation holding it. */
+    public static void writeSeatMap(SeatPlan plan, RecordEncoder encoder) throws IOException {
+        encoder.begin(SEAT_MAP_COLUMNS);
+        forEachSeat(plan, null, seat -> writeSeat(seat, encoder));
+    }
+
+    /**
+     * Writes every seat changed after {@code sequence} in its current state, with the sequence of
+     * its latest change. A cancelled seat is written as available.
+     *
+     * @return the sequence to export the next changes from, see {@link SeatPlan#forEachSeatChangedSince}
+     */
+    public static long writeChanges(SeatPlan plan, long sequence, RecordEncoder encoder) throws IOException {
+        encoder.begin(CHANGE_COLUMNS);
+        try {
+            return plan.forEachSeatChangedSince(sequence, (seat, seatSequence) -> {
+                try {
+                    encoder.beginRecord();
+                    encoder.field("sequence", seatSequence);
+                    writeSeatFields(seat, encoder);
+                    encoder.endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the changes after {@code cursor}, or every changed seat if the cursor was taken of
+     * another epoch of the plan.
+     *
+     * @return the cursor to export the next changes from
+     */
+    public static ChangeCursor writeChanges(SeatPlan plan, ChangeCursor cursor, RecordEncoder encoder) throws IOException {
+        long next = writeChanges(plan, cursor.sequenceIn(plan), encoder);
+        return new ChangeCursor(plan.getChangeEpoch(), next);
+    }
+
+    /** Writes one record per occupied seat. */
+    public static void writePassengerList(SeatPlan plan, RecordEncoder encoder) throws IOException {
+        encoder.begin(PASSENGER_COLUMNS);
+        forEachSeat(plan, SeatStatus.OCCUPIED, seat -> writePassenger(seat, encoder));
+    }
+
+    public static void writeClassStats(Map<SeatClass, ClassStats> stats, RecordEncoder encoder) throws IOException {
+        encoder.begin(CLASS_STATS_COLUMNS);
+        for (Map.Entry<SeatClass, ClassStats> entry : stats.entrySet()) {
+            ClassStats stat = entry.getValue();
+            encoder.beginRecord();
+            encoder.field("class", entry.getKey().name())
+                    .field("totalSeats", stat.totalSeats())
+                    .field("available", stat.available())
+                    .field("occupied", stat.occupied())
+                    .field("reserved", stat.reserved())
+                    .field("blocked", stat.blocked())
+                    .field("occupancyPercentage", stat.occupancyPercentage(), 1);
+            encoder.endRecord();
+        }
+    }
+
+    static void writeSeat(Seat seat, RecordEncoder encoder) throws IOException {
+        encoder.beginRecord();
+        writeSeatFields(seat, encoder);
+        encoder.endRecord();
+    }
+
+    private static void writeSeatFields(Seat seat, RecordEncoder encoder) throws IOException {
+        Booking booking = seat.getBooking();
+        Reservation reservation = seat.getReservation();
+        Instant expiresAt = reservation == null ? null : reservation.expirationTime();
+        encoder.field("row", seat.getRow())
+                .field("seat", seat.getSeatLetter())
+                .field("class", seat.getSeatClass().name())
+                .field("position", seat.getPosition().name())
+                .field("exitRow", seat.isExitRow())
+                .field("status", seat.getStatus().name())
+                .field("passengerName", booking != null ? booking.passengerName()
+                        : reservation != null ? reservation.passengerName() : null)
+                .field("bookingNumber", booking == null ? null : booking.bookingNumber())
+                .field("reservationId", reservation == null ? null : reservation.reservationId())
+                .field("expiresAt", expiresAt == null ? null : expiresAt.toString())
+                .field("specialRequests", booking != null ? booking.specialRequests()
+                        : reservation != null ? reservation.specialRequests() : null);
+    }
+
+    static void writePassenger(Seat seat, RecordEncoder encoder) throws IOException {
+        Booking booking = seat.getBooking();
+        encoder.beginRecord();
+        encoder.field("row", seat.getRow())
+                .field("seat", seat.getSeatLetter())
+                .field("class", seat.getSeatClass().name())
+                .field("passengerName", booking.passengerName())
+                .field("bookingNumber", booking.bookingNumber())
+                .field("specialRequests", booking.specialRequests());
+        encoder.endRecord();
+    }
+
+    private static void forEachSeat(SeatPlan plan, SeatStatus status, SeatWriter writer) throws IOException {
+        try {
+            plan.forEachSeat(status, seat -> {
+                try {
+                    writer.write(seat);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface SeatWriter {
+        void write(Seat seat) throws IOException;
+    }
+}
@@ -0,0 +1,522 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of seat mutations. A {@link SeatPlan} appends one record per
+ * operation while it still holds the seats' locks, so records are in the order the changes were
+ * made, and waits for the record to be durable via {@link #commit} after releasing them.
+ * <p>
+ * Each record stores the resulting state of every seat the operation touched rather than the call
+ * itself, so replaying the journal in order reproduces the plan. The file starts with a header of
+ * int magic, short version and long count of bytes dropped before the file's first record, see
+ * {@link #truncateBefore}; positions count those bytes, so they keep growing across truncations.
+ * Record layout:
+ * <pre>
+ *   int   body length
+ *   int   CRC32 of the body
+ *   byte  operation
+ *   short seat count
+ *   per seat: int index, byte status, then for OCCUPIED the booking
+ *             (name, booking number, requests) and for RESERVED the reservation
+ *             (name, reservation id, expiration, requests), see {@link SeatStateCodec}
+ * </pre>
+ * <p>
+ * With {@link SyncPolicy#GROUP} appends only fill an in-memory buffer. The first caller of
+ * {@link #commit} whose record is not yet durable becomes the leader: it optionally lingers for the
+ * group commit delay, then writes and fsyncs everything appended so far in one go. Callers arriving
+ * meanwhile wait for that flush or lead the next one, so concurrent bookings share fsyncs.
+ */
+public class SeatJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SeatJournal.class);
+    static final int MAGIC = 0x534A4E4C;  // "SJNL"
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES;
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    public enum SyncPolicy {
+        /** Every record is written and fsynced on its own before {@code append} returns. */
+        EVERY_RECORD,
+        /** Records are batched and fsynced once per batch by the committing leader. */
+        GROUP,
+        /** Records are batched and handed to the OS without fsync; survives process but not machine crashes. */
+        NO_SYNC
+    }
+
+    public enum Operation {
+        BOOK, RESERVE, CONFIRM, CANCEL, SWAP, BLOCK, RELEASE, EXPIRE, BOOK_GROUP
+    }
+
+    private final Path file;
+    // Replaced by truncateBefore; guarded by lock, or owned by the flushing leader
+    private FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final long groupCommitDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDone = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    // Guarded by lock
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    // Bytes dropped in front of the file; file offset = position - dropped
+    private long dropped;
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean flushing;
+    // Written under lock, read without it by checkAppendable
+    private volatile IOException failure;
+    private long flushCount;
+
+    private SeatJournal(Path file, FileChannel channel, SyncPolicy syncPolicy, Duration groupCommitDelay)
+            throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.syncPolicy = syncPolicy;
+        this.groupCommitDelayNanos = groupCommitDelay.toNanos();
+        if (channel.size() == 0) {
+            writeHeader(channel, 0);
+            channel.force(true);
+        } else {
+            dropped = readHeader(channel, file);
+        }
+        appendedPosition = durablePosition = dropped + channel.size();
+        channel.position(channel.size());
+    }
+
+    /** Opens {@code file} for appending, creating it if needed. */
+    public static SeatJournal open(Path file, SyncPolicy syncPolicy) throws IOException {
+        return open(file, syncPolicy, Duration.ZERO);
+    }
+
+    /**
+     * @param groupCommitDelay how long a {@link SyncPolicy#GROUP} leader waits for more records
+     *                         before flushing; zero flushes as soon as the previous flush is done
+     */
+    public static SeatJournal open(Path file, SyncPolicy syncPolicy, Duration groupCommitDelay) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new SeatJournal(file, channel, syncPolicy, groupCommitDelay);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Appends the current state of the given seats as one record.
+     *
+     * @return the journal position to pass to {@link #commit}
+     */
+    long append(Operation operation, SeatStore seats, int... indices) {
+        lock.lock();
+        try {
+            checkFailure();
+            int start = pending.position();
+            while (true) {
+                try {
+                    encode(operation, seats, indices);
+                    break;
+                } catch (BufferOverflowException e) {
+                    pending.position(start);
+                    grow();
+                } catch (RuntimeException e) {
+                    pending.position(start);
+                    throw e;
+                }
+            }
+            appendedPosition += pending.position() - start;
+            if (syncPolicy == SyncPolicy.EVERY_RECORD) {
+                ByteBuffer batch = pending;
+                pending = spare;
+                spare = batch;
+                writeBatch(batch, appendedPosition);
+            }
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Throws what {@link #append} would throw for a record carrying {@code booking} or
+     * {@code reservation}, so a plan can reject an operation before it changes any seat: the
+     * journal failed earlier, or a field is too long to encode. Either may be {@code null}.
+     */
+    void checkAppendable(Booking booking, Reservation reservation) {
+        checkFailure();
+        SeatStateCodec.checkPayload(booking, reservation);
+    }
+
+    /** Blocks until everything up to {@code position} has been written (and fsynced, unless {@link SyncPolicy#NO_SYNC}). */
+    void commit(long position) {
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                checkFailure();
+                if (flushing) {
+                    flushDone.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                try {
+                    if (groupCommitDelayNanos > 0) {
+                        lock.unlock();
+                        try {
+                            LockSupport.parkNanos(groupCommitDelayNanos);
+                        } finally {
+                            lock.lock();
+                        }
+                    }
+                    ByteBuffer batch = pending;
+                    pending = spare;
+                    spare = null;
+                    long end = appendedPosition;
+                    lock.unlock();
+                    IOException error = null;
+                    try {
+                        write(batch);
+                    } catch (IOException e) {
+                        error = e;
+                    } finally {
+                        lock.lock();
+                    }
+                    batch.clear();
+                    spare = batch;
+                    if (error != null) {
+                        fail(error);
+                    } else {
+                        durablePosition = end;
+                        flushCount++;
+                    }
+                } finally {
+                    flushing = false;
+                    flushDone.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** End of the last appended record, durable or not. */
+    public long getPosition() {
+        lock.lock();
+        try {
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the records of {@code file} from {@code fromPosition} on to {@code plan}. Replay stops
+     * at the first incomplete or corrupt record, which is what a crash during a write leaves behind,
+     * and the file is truncated there so new records are appended after the last intact one.
+     *
+     * @param fromPosition a record boundary: a snapshot's journal position, or {@link #HEADER_SIZE}
+     *                     for the whole journal unless records were dropped with {@link #truncateBefore}
+     * @return number of records applied
+     * @throws IllegalStateException if the journal has no record boundary at {@code fromPosition}
+     */
+    public static long replay(Path file, long fromPosition, SeatPlan plan) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long dropped = readHeader(channel, file);
+            long size = channel.size();
+            if (fromPosition < dropped + HEADER_SIZE && dropped > 0) {
+                throw new IllegalStateException("Records of " + file + " before position " + (dropped + HEADER_SIZE)
+                        + " were dropped after a snapshot; recover from that snapshot");
+            }
+            if (fromPosition < dropped + HEADER_SIZE || fromPosition > dropped + size) {
+                throw new IllegalStateException("Journal position " + fromPosition + " is outside " + file
+                        + " (positions " + (dropped + HEADER_SIZE) + " to " + (dropped + size)
+                        + "); the snapshot does not belong to this journal");
+            }
+
+            RecordReader records = new RecordReader(channel, fromPosition - dropped, size);
+            CRC32 checksum = new CRC32();
+            long applied = 0;
+            long position = fromPosition - dropped;
+            ByteBuffer body;
+            while ((body = records.next(checksum)) != null) {
+                apply(body, plan);
+                position = records.position();
+                applied++;
+            }
+            if (position < size) {
+                log.warn("Truncating {} bytes of incomplete journal records from {}", size - position, file);
+                channel.truncate(position);
+                channel.force(true);
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Drops the records before {@code position}, e.g. those a snapshot covers, by copying the later
+     * ones into a new file that atomically replaces this one. Later positions stay as they are, so
+     * the position stored in the snapshot still points to the first record after it. Appends and
+     * commits wait while the records are copied; a failed copy leaves the journal as it was.
+     *
+     * @param position a record boundary no later than the durable end of the journal
+     */
+    public void truncateBefore(long position) throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushDone.awaitUninterruptibly();
+            }
+            checkFailure();
+            if (position > durablePosition) {
+                throw new IllegalArgumentException("Journal position " + position + " is not durable yet");
+            }
+            if (position <= dropped + HEADER_SIZE) return;
+            // Keeps commit leaders off the channel while it is replaced
+            flushing = true;
+            try {
+                replaceFile(position);
+            } finally {
+                flushing = false;
+                flushDone.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds lock and has set flushing
+    private void replaceFile(long position) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel truncated = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        long newDropped = position - HEADER_SIZE;
+        try {
+            writeHeader(truncated, newDropped);
+            long from = position - dropped;
+            long end = durablePosition - dropped;
+            while (from < end) {
+                from += channel.transferTo(from, end - from, truncated);
+            }
+            truncated.force(true);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            truncated.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the replaced journal of {}", file, e);
+        }
+        log.debug("Dropped {} bytes of records before position {} from {}", newDropped - dropped, position, file);
+        channel = truncated;
+        dropped = newDropped;
+    }
+
+    private static void writeHeader(FileChannel channel, long dropped) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putLong(dropped).flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    /** @return the number of bytes dropped in front of the file's first record */
+    private static long readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IOException(file + " is not a seat journal");
+        }
+        long dropped = header.getLong();
+        if (dropped < 0) {
+            throw new IOException(file + " is damaged");
+        }
+        return dropped;
+    }
+
+    private static void apply(ByteBuffer body, SeatPlan plan) {
+        Operation operation = OPERATIONS[body.get()];
+        int count = body.getShort();
+        for (int i = 0; i < count; i++) {
+            int index = body.getInt();
+            SeatStatus status = SeatStateCodec.status(body.get());
+            Booking booking = status == SeatStatus.OCCUPIED ? SeatStateCodec.getBooking(body) : null;
+            Reservation reservation = status == SeatStatus.RESERVED ? SeatStateCodec.getReservation(body) : null;
+            plan.restore(index, status, booking, reservation);
+        }
+        log.trace("Replayed {} of {} seat(s)", operation, count);
+    }
+
+    /**
+     * Reads the records of a journal file through a buffer refilled with positional reads, so
+     * journals of any size replay with one buffer's worth of memory. The buffer grows for a record
+     * larger than itself.
+     */
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private final long end;
+        // File offset of the buffer's first byte
+        private long bufferStart;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).limit(0);
+
+        RecordReader(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.bufferStart = from;
+            this.end = to;
+        }
+
+        /**
+         * @return the next intact record body, valid until the next call, or {@code null} at the
+         *         end or at a damaged record
+         */
+        ByteBuffer next(CRC32 checksum) throws IOException {
+            if (!fill(RECORD_HEADER_SIZE)) return null;
+            int length = buffer.getInt(buffer.position());
+            int expected = buffer.getInt(buffer.position() + Integer.BYTES);
+            if (length <= 0 || length > end - position() - RECORD_HEADER_SIZE) return null;
+            if (!fill(RECORD_HEADER_SIZE + length)) return null;
+            ByteBuffer body = buffer.slice(buffer.position() + RECORD_HEADER_SIZE, length);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != expected) return null;
+            buffer.position(buffer.position() + RECORD_HEADER_SIZE + length);
+            return body;
+        }
+
+        /** File offset of the next record. */
+        long position() {
+            return bufferStart + buffer.position();
+        }
+
+        // Makes count bytes from the current position available in the buffer if the file has them
+        private boolean fill(int count) throws IOException {
+            if (buffer.remaining() >= count) return true;
+            if (end - position() < count) return false;
+            bufferStart = position();
+            buffer.compact();
+            if (buffer.capacity() < count) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(count, buffer.capacity() * 2));
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+            buffer.limit((int) Math.min(buffer.capacity(), end - bufferStart));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, bufferStart + buffer.position()) < 0) break;
+            }
+            buffer.flip();
+            return buffer.remaining() >= count;
+        }
+    }
+
+    /** Number of writes to the file so far; with group commit usually far below the number of records. */
+    public long getFlushCount() {
+        lock.lock();
+        try {
+            return flushCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes out everything appended so far. */
+    public void flush() {
+        long position;
+        lock.lock();
+        try {
+            position = appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+        commit(position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (failure == null) flush();
+        } finally {
+            channel.close();
+            log.debug("Closed seat journal {} after {} flushes", file, flushCount);
+        }
+    }
+
+    // Caller holds lock; used for EVERY_RECORD, where the write happens inside append
+    private void writeBatch(ByteBuffer batch, long end) {
+        try {
+            write(batch);
+            durablePosition = end;
+            flushCount++;
+        } catch (IOException e) {
+            fail(e);
+            checkFailure();
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) channel.write(batch);
+        if (syncPolicy != SyncPolicy.NO_SYNC) channel.force(false);
+    }
+
+    private void fail(IOException e) {
+        log.error("Writing seat journal {} failed, journal is closed for appends", file, e);
+        failure = e;
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Seat journal " + file + " failed earlier", failure);
+        }
+    }
+
+    private void grow() {
+        ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    private void encode(Operation operation, SeatStore seats, int[] indices) {
+        int start = pending.position();
+        pending.position(start + RECORD_HEADER_SIZE);
+        pending.put((byte) operation.ordinal());
+        pending.putShort((short) indices.length);
+        for (int index : indices) {
+            SeatStatus status = seats.getStatus(index);
+            pending.putInt(index);
+            pending.put((byte) status.ordinal());
+            SeatStateCodec.putPayload(pending, status, seats.getBooking(index), seats.getReservation(index));
+        }
+        int end = pending.position();
+        int bodyStart = start + RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(pending.array(), bodyStart, end - bodyStart);
+        pending.putInt(start, end - bodyStart);
+        pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+}
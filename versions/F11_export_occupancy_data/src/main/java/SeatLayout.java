@@ -0,0 +1,308 @@
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Immutable seat geometry of one aircraft type, loaded from a layout template (see
+ * {@code layouts/A350-900.properties}). Everything a plan needs to know about a seat besides its
+ * state is precomputed into flat tables indexed by seat: row, letter, and a trait byte packing
+ * class, position and exit-row flag. The layout holds no flight state, so every {@link SeatPlan}
+ * of the same aircraft type shares one instance.
+ */
+public class SeatLayout {
+    public static final String AIRBUS_A350_900 = "A350-900";
+    // Bundled templates, shared by every plan and flight registry of the process
+    static final LayoutCache BUILT_IN = new LayoutCache(SeatLayout::readBuiltIn);
+
+    private static final SeatClass[] CLASSES = SeatClass.values();
+    private static final SeatPosition[] POSITIONS = SeatPosition.values();
+    // Trait byte layout: bits 0-1 seat class, bits 2-3 position, bit 4 exit row
+    private static final int CLASS_MASK = 0b11;
+    private static final int POSITION_SHIFT = 2;
+    private static final int POSITION_MASK = 0b11;
+    private static final int EXIT_FLAG = 1 << 4;
+
+    @Getter
+    private final String aircraftType;
+    @Getter
+    private final List<SeatSection> sections;
+    @Getter
+    private final int seatCount;
+    private final int[] rowOffsets;
+    private final int[] rowWidths;
+    private final byte[] rowSections;
+    private final byte[][] columnsByLetter;
+    private final String[][] letters;
+    private final short[] seatRows;
+    private final byte[] seatColumns;
+    private final byte[] seatTraits;
+    private final long[][] classBits = new long[CLASSES.length][];
+    private final long[][] positionBits = new long[POSITIONS.length][];
+    private final long[] exitRowBits;
+
+    private SeatLayout(String aircraftType, List<SectionTemplate> templates) {
+        this.aircraftType = aircraftType;
+        this.sections = templates.stream().map(SectionTemplate::section).toList();
+
+        int maxRow = sections.stream().mapToInt(SeatSection::getEndRow).max().orElse(0);
+        rowOffsets = new int[maxRow + 1];
+        rowWidths = new int[maxRow + 1];
+        rowSections = new byte[maxRow + 1];
+        Arrays.fill(rowOffsets, -1);
+        columnsByLetter = new byte[sections.size()][26];
+        letters = new String[sections.size()][];
+
+        int offset = 0;
+        for (int s = 0; s < sections.size(); s++) {
+            SeatSection section = sections.get(s);
+            Arrays.fill(columnsByLetter[s], (byte) -1);
+            letters[s] = new String[section.getSeatsPerRow()];
+            for (int column = 0; column < section.getSeatsPerRow(); column++) {
+                char letter = section.getSeatLetters().charAt(column);
+                columnsByLetter[s][letter - 'A'] = (byte) column;
+                letters[s][column] = String.valueOf(letter);
+            }
+            for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
+                if (rowOffsets[row] >= 0) {
+                    throw new IllegalArgumentException(aircraftType + ": row " + row + " is in two sections");
+                }
+                rowOffsets[row] = offset;
+                rowWidths[row] = section.getSeatsPerRow();
+                rowSections[row] = (byte) s;
+                offset += section.getSeatsPerRow();
+            }
+        }
+        seatCount = offset;
+
+        seatRows = new short[seatCount];
+        seatColumns = new byte[seatCount];
+        seatTraits = new byte[seatCount];
+        int words = (seatCount + 63) >>> 6;
+        for (int i = 0; i < classBits.length; i++) classBits[i] = new long[words];
+        for (int i = 0; i < positionBits.length; i++) positionBits[i] = new long[words];
+        exitRowBits = new long[words];
+
+        for (SectionTemplate template : templates) {
+            SeatSection section = template.section();
+            for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
+                boolean exitRow = template.exitRows().contains(row);
+                for (int column = 0; column < section.getSeatsPerRow(); column++) {
+                    int index = rowOffsets[row] + column;
+                    SeatPosition position = template.positions()[column];
+                    seatRows[index] = (short) row;
+                    seatColumns[index] = (byte) column;
+                    seatTraits[index] = (byte) (section.getSeatClass().ordinal()
+                            | position.ordinal() << POSITION_SHIFT
+                            | (exitRow ? EXIT_FLAG : 0));
+                    setBit(classBits[section.getSeatClass().ordinal()], index);
+                    setBit(positionBits[position.ordinal()], index);
+                    if (exitRow) {
+                        setBit(exitRowBits, index);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Layout template bundled for {@code aircraftType}, loaded once and shared afterwards.
+     *
+     * @throws IllegalArgumentException if no template exists for the aircraft type
+     */
+    public static SeatLayout forAircraftType(String aircraftType) {
+        return BUILT_IN.get(aircraftType);
+    }
+
+    private static SeatLayout readBuiltIn(String aircraftType) {
+        try (InputStream in = SeatLayout.class.getResourceAsStream("/layouts/" + aircraftType + ".properties")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown aircraft type: " + aircraftType);
+            }
+            Properties template = new Properties();
+            template.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return fromTemplate(aircraftType, template);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read layout template for " + aircraftType, e);
+        }
+    }
+
+    /** Reads a layout template file; the aircraft type is the file name without extension. */
+    public static SeatLayout load(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String aircraftType = fileName.endsWith(".properties")
+                ? fileName.substring(0, fileName.length() - ".properties".length())
+                : fileName;
+        Properties template = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            template.load(reader);
+        }
+        return fromTemplate(aircraftType, template);
+    }
+
+    public static SeatLayout fromTemplate(String aircraftType, Properties template) {
+        List<SectionTemplate> sections = new ArrayList<>();
+        for (int n = 1; template.containsKey("section." + n + ".class"); n++) {
+            sections.add(SectionTemplate.parse(aircraftType, "section." + n + ".", template));
+        }
+        if (sections.isEmpty()) {
+            throw new IllegalArgumentException(aircraftType + ": layout template defines no sections");
+        }
+        return new SeatLayout(aircraftType, sections);
+    }
+
+    /**
+     * Resolves a seat to its index. Seats are laid out row by row in section order, so the index
+     * is the row's first index plus the letter's column.
+     *
+     * @return the seat index, or -1 if the seat does not exist in this layout
+     */
+    public int indexOf(int row, String seatLetter) {
+        if (row < 0 || row >= rowOffsets.length || rowOffsets[row] < 0
+                || seatLetter == null || seatLetter.length() != 1) {
+            return -1;
+        }
+        int letter = Character.toUpperCase(seatLetter.charAt(0)) - 'A';
+        if (letter < 0 || letter >= 26) return -1;
+        int column = columnsByLetter[rowSections[row]][letter];
+        return column < 0 ? -1 : rowOffsets[row] + column;
+    }
+
+    public int getMaxRow() {
+        return rowOffsets.length - 1;
+    }
+
+    /** Index of the first seat of {@code row}, or -1 if the row does not exist. */
+    public int getRowOffset(int row) {
+        return rowOffsets[row];
+    }
+
+    public int getRowWidth(int row) {
+        return rowWidths[row];
+    }
+
+    public int getRow(int index) {
+        return seatRows[index];
+    }
+
+    public String getSeatLetter(int index) {
+        return letters[rowSections[seatRows[index]]][seatColumns[index]];
+    }
+
+    public SeatClass getSeatClass(int index) {
+        return CLASSES[seatTraits[index] & CLASS_MASK];
+    }
+
+    public SeatPosition getPosition(int index) {
+        return POSITIONS[seatTraits[index] >> POSITION_SHIFT & POSITION_MASK];
+    }
+
+    public boolean isExitRow(int index) {
+        return (seatTraits[index] & EXIT_FLAG) != 0;
+    }
+
+    /** Builds the {@link Seat} at {@code index} in the given state. */
+    public Seat seatAt(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        return new Seat(getRow(index), getSeatLetter(index), status, getSeatClass(index),
+                        booking, reservation, getPosition(index), isExitRow(index));
+    }
+
+    // The masks below are shared between plans and must not be modified
+
+    long[] getClassBits(SeatClass seatClass) {
+        return classBits[seatClass.ordinal()];
+    }
+
+    long[] getPositionBits(SeatPosition position) {
+        return positionBits[position.ordinal()];
+    }
+
+    long[] getExitRowBits() {
+        return exitRowBits;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private record SectionTemplate(SeatSection section, SeatPosition[] positions, List<Integer> exitRows) {
+
+        static SectionTemplate parse(String aircraftType, String prefix, Properties template) {
+            String name = aircraftType + " " + prefix.substring(0, prefix.length() - 1);
+            try {
+                SeatClass seatClass = SeatClass.valueOf(template.getProperty(prefix + "class").trim());
+                String[] rows = required(template, prefix + "rows").split("-");
+                int startRow = Integer.parseInt(rows[0].trim());
+                int endRow = Integer.parseInt(rows[rows.length - 1].trim());
+                if (startRow < 1 || endRow < startRow) {
+                    throw new IllegalArgumentException("invalid rows " + template.getProperty(prefix + "rows"));
+                }
+
+                // "ABC|DEF|GHI": the outermost seats are windows, seats next to a '|' are aisles
+                String pattern = required(template, prefix + "seats").replace(" ", "");
+                String seatLetters = pattern.replace("|", "");
+                if (seatLetters.isEmpty() || !seatLetters.matches("[A-Z]+")
+                        || seatLetters.chars().distinct().count() != seatLetters.length()) {
+                    throw new IllegalArgumentException("invalid seats " + pattern);
+                }
+                SeatPosition[] positions = new SeatPosition[seatLetters.length()];
+                for (int i = 0, column = 0; i < pattern.length(); i++) {
+                    if (pattern.charAt(i) == '|') continue;
+                    boolean window = column == 0 || column == seatLetters.length() - 1;
+                    boolean aisle = (i > 0 && pattern.charAt(i - 1) == '|')
+                            || (i + 1 < pattern.length() && pattern.charAt(i + 1) == '|');
+                    positions[column++] = window ? SeatPosition.WINDOW
+                            : aisle ? SeatPosition.AISLE : SeatPosition.MIDDLE;
+                }
+                // "WMMAMMAMW": one W, A or M per seat, for cabins the seat pattern cannot describe
+                String explicitPositions = template.getProperty(prefix + "positions", "").replace(" ", "");
+                if (!explicitPositions.isEmpty()) {
+                    if (explicitPositions.length() != seatLetters.length()) {
+                        throw new IllegalArgumentException("positions " + explicitPositions
+                                + " do not match seats " + pattern);
+                    }
+                    for (int column = 0; column < positions.length; column++) {
+                        positions[column] = switch (explicitPositions.charAt(column)) {
+                            case 'W' -> SeatPosition.WINDOW;
+                            case 'A' -> SeatPosition.AISLE;
+                            case 'M' -> SeatPosition.MIDDLE;
+                            default -> throw new IllegalArgumentException("invalid positions " + explicitPositions);
+                        };
+                    }
+                }
+
+                List<Integer> exitRows = new ArrayList<>();
+                for (String row : template.getProperty(prefix + "exitRows", "").split(",")) {
+                    if (row.isBlank()) continue;
+                    int exitRow = Integer.parseInt(row.trim());
+                    if (exitRow < startRow || exitRow > endRow) {
+                        throw new IllegalArgumentException("exit row " + exitRow + " is outside the section");
+                    }
+                    exitRows.add(exitRow);
+                }
+                return new SectionTemplate(new SeatSection(seatClass, startRow, endRow, seatLetters),
+                                           positions, exitRows);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private static String required(Properties template, String key) {
+            String value = template.getProperty(key);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("missing " + key);
+            }
+            return value;
+        }
+    }
+}
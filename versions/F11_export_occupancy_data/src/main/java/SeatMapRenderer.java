@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+/**
+ * Renders the seat availability map of a plan as text, one line per row and one symbol per seat,
+ * with a heading per section. The line of each row is cached with the row's
+ * {@link SeatPlan#getRowVersion version} and only rendered again, from the row's statuses read
+ * under its lock, once the version has moved on. The map is assembled in a character buffer that
+ * is reused from render to render, so it can be emitted with a single write. Not thread-safe; use
+ * one renderer per thread.
+ */
+public class SeatMapRenderer {
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private final StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+    private final StringBuilder line = new StringBuilder();
+    private final SeatStatus[] rowStatuses = new SeatStatus[Long.SIZE];
+    // Row lines of the plan rendered last, and the row versions they were rendered at
+    private SeatPlan cachedPlan;
+    private String[] rowLines = new String[0];
+    private long[] rowVersions = new long[0];
+    private int renderedRows;
+
+    /** Returns the rendered map, which stays valid until the next call. */
+    public CharSequence render(SeatPlan plan) {
+        if (plan != cachedPlan) {
+            cachedPlan = plan;
+            rowLines = new String[plan.getLayout().getMaxRow() + 1];
+            rowVersions = new long[rowLines.length];
+            Arrays.fill(rowVersions, -1);
+        }
+        renderedRows = 0;
+        buffer.setLength(0);
+        buffer.append("Seat Availability:");
+        for (SeatSection section : plan.getSections()) {
+            buffer.append("\n\n=== ").append(section.getSeatClass().name()).append(" Class ===");
+            for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
+                buffer.append('\n').append(rowLine(plan, row));
+            }
+        }
+        return buffer;
+    }
+
+    /** Number of rows the last {@link #render} had to render instead of taking from the cache. */
+    public int getRenderedRows() {
+        return renderedRows;
+    }
+
+    private String rowLine(SeatPlan plan, int row) {
+        if (row < 0 || row >= rowLines.length) return renderRow(plan, row);
+        // Read the version first: a change after this point moves it on again and is picked up next time
+        long version = plan.getRowVersion(row);
+        if (rowVersions[row] != version) {
+            rowLines[row] = renderRow(plan, row);
+            rowVersions[row] = version;
+        }
+        return rowLines[row];
+    }
+
+    private String renderRow(SeatPlan plan, int row) {
+        renderedRows++;
+        int width = plan.getRowStatuses(row, rowStatuses);
+        line.setLength(0);
+        line.append("Row ");
+        if (row >= 0 && row < 10) line.append(' ');
+        line.append(row).append(": ");
+        for (int column = 0; column < width; column++) {
+            if (column > 0) line.append(' ');
+            line.append(symbol(rowStatuses[column]));
+        }
+        return line.toString();
+    }
+
+    static String symbol(SeatStatus status) {
+        return switch (status) {
+            case AVAILABLE -> "[A]";
+            case RESERVED -> "[R]";
+            case OCCUPIED -> "[O]";
+            case BLOCKED -> "[B]";
+        };
+    }
+}
@@ -1,261 +1,1224 @@
 import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-public class SeatPlan {
+/**
+ * Seat plan of one flight. Single-seat operations lock only the row stripe of their seat and
+ * {@link #swapSeats} takes both stripes in ascending order. Operations that return lists of seats
+ * lock every stripe so the result is a consistent view. With the default single stripe the whole
+ * plan is guarded by one lock. With a {@link SeatJournal} attached every mutation is recorded before
+ * the locks are released and is durable when the method returns.
+ */
+public class SeatPlan implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(SeatPlan.class);
-    private final List<Seat> seats = new ArrayList<>();
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    // Stamps that may be in flight at once before a new one waits for the oldest; see #stampChange
+    private static final int COMPLETED_STAMP_SLOTS = 256;
+    private final SeatStore seats;
     @Getter
-    private final List<SeatSection> sections;
+    private final SeatLayout layout;
+    private final RowLocks locks;
+    // Seat count per [SeatClass ordinal][SeatStatus ordinal], kept in step with every transition
+    private final AtomicIntegerArray[] statusCounts = new AtomicIntegerArray[SeatClass.values().length];
+    @Setter
+    private volatile boolean verifyOccupancyCounters;
+    private final SeatBitsets bitsets;
+    // Reservation deadlines, earliest first. Entries go stale when their seat is confirmed,
+    // cancelled, blocked or swapped and are dropped once they reach the head of the queue.
+    private final PriorityQueue<ReservationHold> reservationHolds =
+            new PriorityQueue<>(Comparator.comparing(ReservationHold::deadline));
+    @Setter
+    private volatile Consumer<Instant> reservationDeadlineListener = deadline -> { };
+    // Every transition takes the next change sequence and stamps it on its seat and row; see
+    // #forEachSeatChangedSince. Sequences start at 0 with every plan instance, so each instance
+    // has a random epoch telling its sequences apart from those of an earlier one; a copy keeps it.
+    private long changeEpoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong changeSequence = new AtomicLong();
+    // Low-water mark of the stamps: every sequence up to it has been stamped. Stamps may finish out
+    // of order, so each one marks its slot in completedStamps and moves the mark over the slots
+    // that follow it without gaps; see #stampChange.
+    private final AtomicLong stampedThrough = new AtomicLong();
+    private final AtomicLongArray completedStamps = new AtomicLongArray(COMPLETED_STAMP_SLOTS);
+    private final AtomicLongArray seatSequences;
+    private final AtomicLongArray rowSequences;
+    /** Journal receiving every seat mutation; {@code null} keeps the plan in memory only. */
+    @Getter
+    private volatile SeatJournal journal;
+    // Per seat, the change sequence of the earliest change rolled back because its journal record
+    // was lost; see #rollBackLost. Guarded by itself and cleared with every new journal.
+    private final Map<Integer, Long> rolledBackChanges = new HashMap<>();
+    /** Records calls and latencies of the public operations; {@code null} records nothing. */
+    @Getter
+    @Setter
+    private volatile SeatPlanMetrics metrics;
 
     public SeatPlan() {
-        this.sections = initializeSections();
-        initializeSeats();
+        this(ObjectSeatStore::new);
     }
 
-    private List<SeatSection> initializeSections() {
-        return List.of(
-                new SeatSection(SeatClass.BUSINESS, 1, 8, 4),
-                new SeatSection(SeatClass.PREMIUM_ECONOMY, 9, 16, 8),
-                new SeatSection(SeatClass.ECONOMY, 17, 40, 9)
-        );
+    public SeatPlan(Function<SeatLayout, SeatStore> storeFactory) {
+        this(storeFactory, Integer.MAX_VALUE);
+    }
+
+    public SeatPlan(Function<SeatLayout, SeatStore> storeFactory, int rowsPerStripe) {
+        this(SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900), storeFactory, rowsPerStripe);
+    }
+
+    /**
+     * @param layout        seat geometry, shared with other plans of the same aircraft type
+     * @param rowsPerStripe number of consecutive rows sharing one lock; 1 gives every row its own lock
+     */
+    public SeatPlan(SeatLayout layout, Function<SeatLayout, SeatStore> storeFactory, int rowsPerStripe) {
+        this.layout = layout;
+        this.seats = storeFactory.apply(layout);
+        initializeCounters();
+        this.bitsets = new SeatBitsets(layout, seats);
+        this.locks = new RowLocks(layout.getMaxRow() + 1, rowsPerStripe);
+        this.seatSequences = new AtomicLongArray(seats.size());
+        this.rowSequences = new AtomicLongArray(layout.getMaxRow() + 1);
+        // A store opened from a file may already hold reservations that still have to expire
+        bitsets.forEach(SeatStatus.RESERVED, null, null, false, index -> {
+            Reservation reservation = seats.getReservation(index);
+            if (reservation.expirationTime() != null) {
+                reservationHolds.add(new ReservationHold(reservation.expirationTime(), index, reservation));
+            }
+        });
+        log.debug("Initialized {} seating plan with {} seats", layout.getAircraftType(), seats.size());
+    }
+
+    public List<SeatSection> getSections() {
+        return layout.getSections();
+    }
+
+    private void initializeCounters() {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = new AtomicIntegerArray(SeatStatus.values().length);
+        }
+        for (int i = 0; i < seats.size(); i++) {
+            statusCounts[seats.getSeatClass(i).ordinal()].incrementAndGet(seats.getStatus(i).ordinal());
+        }
+    }
+
+    // Start of a timed operation, or NOT_TIMED if no metrics are attached
+    private long startTiming() {
+        return metrics == null ? NOT_TIMED : System.nanoTime();
+    }
+
+    private void stopTiming(SeatPlanMetrics.Operation operation, long start, boolean succeeded) {
+        SeatPlanMetrics current = metrics;
+        if (current != null && start != NOT_TIMED) {
+            current.record(operation, System.nanoTime() - start, succeeded);
+        }
+    }
+
+    int indexOf(int row, String seatLetter) {
+        return layout.indexOf(row, seatLetter);
+    }
+
+    // Callers must hold the lock of the seat's row
+    private void transition(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        SeatStatus previous = seats.getStatus(index);
+        countTransition(seats.getSeatClass(index), previous, status);
+        bitsets.moveStatus(index, previous, status);
+        seats.update(index, status, booking, reservation);
+        stampChange(index);
+    }
+
+    /** Gives the seat the next change sequence; called after every transition. */
+    void stampChange(int index) {
+        long sequence = changeSequence.incrementAndGet();
+        // Lock-free transitions of one seat or row may stamp out of order, so keep the highest
+        seatSequences.accumulateAndGet(index, sequence, Math::max);
+        rowSequences.accumulateAndGet(layout.getRow(index), sequence, Math::max);
+        completeStamp(sequence);
+    }
+
+    private void completeStamp(long sequence) {
+        // The slot is shared with the sequence COMPLETED_STAMP_SLOTS earlier; that stamp is only
+        // a few instructions, so this waits for one preempted thread, never for newer stamps
+        for (int spins = 0; stampedThrough.get() < sequence - COMPLETED_STAMP_SLOTS; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        completedStamps.set(slotOf(sequence), sequence);
+        // Whoever completes the stamp right after the mark moves it on, so no stamp is left behind
+        long through = stampedThrough.get();
+        while (completedStamps.get(slotOf(through + 1)) == through + 1) {
+            if (stampedThrough.compareAndSet(through, through + 1)) {
+                through++;
+            } else {
+                through = stampedThrough.get();
+            }
+        }
+    }
+
+    private static int slotOf(long sequence) {
+        return (int) (sequence % COMPLETED_STAMP_SLOTS);
+    }
+
+    long getSeatSequence(int index) {
+        return seatSequences.get(index);
+    }
+
+    /**
+     * Version of {@code row}: the change sequence of its latest change, 0 if none of its seats
+     * changed since the plan was created. Grows with every change to one of the row's seats, so a
+     * reader can keep anything derived from the row until the version moves on.
+     */
+    public long getRowVersion(int row) {
+        return rowSequences.get(row);
+    }
+
+    /** Sequence of the latest change to this plan; 0 if it is unchanged since it was created. */
+    public long getChangeSequence() {
+        return changeSequence.get();
+    }
+
+    /** Epoch of this plan's change sequences; see {@link ChangeCursor}. */
+    public long getChangeEpoch() {
+        return changeEpoch;
+    }
+
+    // Highest sequence up to which every change is visible in the seat and row sequences. Stamps
+    // still in flight are not waited for; changes after the returned sequence may already show.
+    long stampedChangeSequence() {
+        return stampedThrough.get();
+    }
+
+    void countTransition(SeatClass seatClass, SeatStatus previous, SeatStatus status) {
+        AtomicIntegerArray counts = statusCounts[seatClass.ordinal()];
+        counts.decrementAndGet(previous.ordinal());
+        counts.incrementAndGet(status.ordinal());
+    }
+
+    public void setJournal(SeatJournal journal) {
+        synchronized (rolledBackChanges) {
+            rolledBackChanges.clear();
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Checks that a change of the seat at {@code index} to {@code booking} or {@code reservation}
+     * can be journaled and saves the seat's state to undo it; call under the seat's lock before
+     * changing it. Nothing has changed when this throws.
+     *
+     * @return the saved state for {@link #record} and {@link #commit}, or {@code null} without a journal
+     */
+    private JournalUndo prepareRecord(Booking booking, Reservation reservation, int index) {
+        SeatJournal current = journal;
+        if (current == null) return null;
+        current.checkAppendable(booking, reservation);
+        return new JournalUndo(current, seats, new int[]{index});
+    }
+
+    /** Like {@link #prepareRecord(Booking, Reservation, int)} for seats given the {@code bookings}. */
+    private JournalUndo prepareRecord(List<Booking> bookings, int[] indices) {
+        SeatJournal current = journal;
+        if (current == null) return null;
+        for (Booking booking : bookings) {
+            current.checkAppendable(booking, null);
+        }
+        return new JournalUndo(current, seats, indices);
+    }
+
+    /** Like {@link #prepareRecord(Booking, Reservation, int)} for seats that only trade their payloads. */
+    private JournalUndo prepareRecord(int index1, int index2) {
+        SeatJournal current = journal;
+        if (current == null) return null;
+        current.checkAppendable(null, null);
+        return new JournalUndo(current, seats, new int[]{index1, index2});
+    }
+
+    /**
+     * Appends the current state of the seats saved in {@code undo} to the journal. Callers must
+     * hold the seats' locks so the record order matches the order of the changes. If the append
+     * fails the seats are put back before the exception is rethrown.
+     */
+    private void record(SeatJournal.Operation operation, JournalUndo undo) {
+        if (undo == null) return;
+        // Under the seats' locks, so a later change of one of them always sees a higher sequence
+        undo.sequence = changeSequence.get();
+        try {
+            undo.position = undo.journal.append(operation, seats, undo.indices);
+        } catch (RuntimeException e) {
+            revert(undo);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the record of {@code undo} is durable; call without locks held. If the journal
+     * fails first the change is rolled back before the exception is rethrown.
+     */
+    private void commit(JournalUndo undo) {
+        if (undo == null) return;
+        try {
+            undo.journal.commit(undo.position);
+        } catch (RuntimeException e) {
+            rollBackLost(undo);
+            throw e;
+        }
+    }
+
+    // Callers hold the seats' locks
+    private void revert(JournalUndo undo) {
+        for (int i = 0; i < undo.indices.length; i++) {
+            transition(undo.indices[i], undo.statuses[i], undo.bookings[i], undo.reservations[i]);
+            if (undo.reservations[i] != null) trackReservation(undo.indices[i], undo.reservations[i]);
+        }
     }
 
-    private void initializeSeats() {
-        for (SeatSection section : sections) {
-            for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
-                for (int seatNum = 0; seatNum < section.getSeatsPerRow(); seatNum++) {
-                    char seatLetter = (char) ('A' + seatNum);
-                    seats.add(new Seat(row, String.valueOf(seatLetter), SeatStatus.AVAILABLE, section.getSeatClass(), null));
+    /**
+     * Rolls back a change whose record was lost when the journal failed. Other seat changes may have
+     * followed it meanwhile, but once a journal failed none of them can become durable either, and
+     * records of one seat are appended in the order of its changes. So each seat goes back to its
+     * state before the earliest lost change, whichever of the lost changes rolls back first.
+     */
+    private void rollBackLost(JournalUndo undo) {
+        int firstRow = seats.getRow(undo.indices[0]);
+        int lastRow = seats.getRow(undo.indices[undo.indices.length - 1]);
+        locks.lockPair(firstRow, lastRow);
+        try {
+            synchronized (rolledBackChanges) {
+                for (int i = 0; i < undo.indices.length; i++) {
+                    int index = undo.indices[i];
+                    Long earliest = rolledBackChanges.get(index);
+                    if (earliest != null && earliest < undo.sequence) continue;
+                    rolledBackChanges.put(index, undo.sequence);
+                    transition(index, undo.statuses[i], undo.bookings[i], undo.reservations[i]);
+                    if (undo.reservations[i] != null) trackReservation(index, undo.reservations[i]);
                 }
             }
+        } finally {
+            locks.unlockPair(firstRow, lastRow);
+        }
+        log.warn("Rolled back {} seat change(s) whose journal record was lost", undo.indices.length);
+    }
+
+    /**
+     * Puts a seat into a recovered state without journaling it; used when loading a snapshot or
+     * replaying the journal.
+     */
+    void restore(int index, SeatStatus status, Booking booking, Reservation reservation) {
+        if (index < 0 || index >= seats.size()) {
+            throw new IllegalArgumentException("No seat with index " + index + " in " + layout.getAircraftType());
+        }
+        int row = seats.getRow(index);
+        locks.lock(row);
+        try {
+            transition(index, status, booking, reservation);
+        } finally {
+            locks.unlock(row);
+        }
+        if (reservation != null) trackReservation(index, reservation);
+    }
+
+    SeatStore getStore() {
+        return seats;
+    }
+
+    /** Writes every change so far to the storage device if the seats live in a file. */
+    public void force() {
+        seats.force();
+    }
+
+    /**
+     * Closes the store holding the seats, e.g. the file of a {@link MappedSeatStore}; the plan
+     * must not be used afterwards. An attached journal belongs to the caller and stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        seats.close();
+    }
+
+    SeatBitsets getBitsets() {
+        return bitsets;
+    }
+
+    void trackReservation(int index, Reservation reservation) {
+        if (reservation.expirationTime() == null) return;
+        synchronized (reservationHolds) {
+            reservationHolds.add(new ReservationHold(reservation.expirationTime(), index, reservation));
+        }
+        reservationDeadlineListener.accept(reservation.expirationTime());
+    }
+
+    public Seat getSeat(int row, String seatLetter) {
+        long start = startTiming();
+        Seat seat = null;
+        try {
+            return seat = readSeat(row, seatLetter);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.GET_SEAT, start, seat != null);
+        }
+    }
+
+    Seat readSeat(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return null;
+        locks.lock(row);
+        try {
+            return seats.get(index);
+        } finally {
+            locks.unlock(row);
         }
-        log.info("Initialized seating plan with {} seats", seats.size());
     }
 
     public List<Seat> getSeatsByClassAndRow(SeatClass seatClass, int row) {
-        return seats.stream()
-                .filter(seat -> seat.getSeatClass() == seatClass && seat.getRow() == row)
-                .sorted(Comparator.comparing(Seat::getSeatLetter))
-                .collect(Collectors.toList());
+        long start = startTiming();
+        List<Seat> result = null;
+        try {
+            return result = collectSeatsByClassAndRow(seatClass, row);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.GET_SEATS_BY_CLASS_AND_ROW, start, result != null);
+        }
+    }
+
+    private List<Seat> collectSeatsByClassAndRow(SeatClass seatClass, int row) {
+        List<Seat> result = new ArrayList<>();
+        if (row < 0 || row > layout.getMaxRow() || layout.getRowOffset(row) < 0) return result;
+        int offset = layout.getRowOffset(row);
+        locks.lock(row);
+        try {
+            for (int index = offset; index < offset + layout.getRowWidth(row); index++) {
+                if (seats.getSeatClass(index) == seatClass) result.add(seats.get(index));
+            }
+        } finally {
+            locks.unlock(row);
+        }
+        result.sort(Comparator.comparing(Seat::getSeatLetter));
+        return result;
+    }
+
+    /**
+     * Copies the statuses of the seats of {@code row}, in layout order, into {@code statuses},
+     * reading them under the row's lock.
+     *
+     * @return the number of seats in the row, 0 if the row does not exist
+     */
+    int getRowStatuses(int row, SeatStatus[] statuses) {
+        if (row < 0 || row > layout.getMaxRow() || layout.getRowOffset(row) < 0) return 0;
+        int offset = layout.getRowOffset(row);
+        int width = layout.getRowWidth(row);
+        locks.lock(row);
+        try {
+            for (int column = 0; column < width; column++) {
+                statuses[column] = seats.getStatus(offset + column);
+            }
+        } finally {
+            locks.unlock(row);
+        }
+        return width;
     }
 
     public List<Seat> getSeats() {
-        return new ArrayList<>(seats);
+        long start = startTiming();
+        List<Seat> result = null;
+        try {
+            return result = collectSeats();
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.GET_SEATS, start, result != null);
+        }
     }
 
-    public boolean bookSeat(int row, String seatLetter, Booking booking) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat currentSeat = seats.get(i);
-            if (currentSeat.getRow() == row && currentSeat.getSeatLetter().equalsIgnoreCase(seatLetter)) {
-                if (currentSeat.getStatus() == SeatStatus.AVAILABLE) {
-                    Seat newSeat = new Seat(
-                        currentSeat.getRow(),
-                        currentSeat.getSeatLetter(),
-                        SeatStatus.RESERVED,
-                        currentSeat.getSeatClass(),
-                        booking
-                    );
-                    seats.set(i, newSeat);
-                    return true;
-                } else {
-                    return false;
+    private List<Seat> collectSeats() {
+        locks.lockAll();
+        try {
+            return seats.stream().collect(Collectors.toList());
+        } finally {
+            locks.unlockAll();
+        }
+    }
+
+    /**
+     * Returns a detached copy of the plan as it is at this moment, for readers that take long, such
+     * as exports. Only statuses and passenger references are copied while every stripe is locked;
+     * the copy is built after the locks are released. The copy has no journal and later changes to
+     * either plan are not seen by the other.
+     */
+    public SeatPlan snapshot() {
+        long start = startTiming();
+        SeatPlan snapshot = null;
+        try {
+            return snapshot = copy();
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.SNAPSHOT, start, snapshot != null);
+        }
+    }
+
+    SeatPlan copy() {
+        int size = seats.size();
+        byte[] statuses = new byte[size];
+        Object[] payloads = new Object[size];
+        long[] sequences = new long[size];
+        long sequence;
+        locks.lockAll();
+        try {
+            sequence = changeSequence.get();
+            for (int index = 0; index < size; index++) {
+                sequences[index] = seatSequences.get(index);
+                SeatStatus status = seats.getStatus(index);
+                statuses[index] = (byte) status.ordinal();
+                if (status == SeatStatus.OCCUPIED) {
+                    payloads[index] = seats.getBooking(index);
+                } else if (status == SeatStatus.RESERVED) {
+                    payloads[index] = seats.getReservation(index);
                 }
             }
+        } finally {
+            locks.unlockAll();
+        }
+        return copyOf(statuses, payloads, sequences, sequence);
+    }
+
+    /**
+     * Builds a detached plan from copied statuses, their bookings or reservations and the change
+     * sequences of the seats, which the copy keeps.
+     */
+    SeatPlan copyOf(byte[] statuses, Object[] payloads, long[] sequences, long sequence) {
+        int size = statuses.length;
+        SeatStatus[] values = SeatStatus.values();
+        ColumnarSeatStore copy = new ColumnarSeatStore(layout);
+        for (int index = 0; index < size; index++) {
+            SeatStatus status = values[statuses[index]];
+            if (status == SeatStatus.AVAILABLE) continue;
+            copy.update(index, status,
+                        payloads[index] instanceof Booking booking ? booking : null,
+                        payloads[index] instanceof Reservation reservation ? reservation : null);
+        }
+        SeatPlan plan = new SeatPlan(layout, l -> copy, Integer.MAX_VALUE);
+        for (int index = 0; index < size; index++) {
+            plan.seatSequences.set(index, sequences[index]);
+            plan.rowSequences.accumulateAndGet(layout.getRow(index), sequences[index], Math::max);
+        }
+        plan.changeEpoch = changeEpoch;
+        plan.changeSequence.set(sequence);
+        plan.stampedThrough.set(sequence);
+        return plan;
+    }
+
+    public boolean bookSeat(int row, String seatLetter, Booking booking) {
+        long start = startTiming();
+        boolean booked = false;
+        try {
+            return booked = book(row, seatLetter, booking);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.BOOK_SEAT, start, booked);
+        }
+    }
+
+    boolean book(int row, String seatLetter, Booking booking) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        locks.lock(row);
+        try {
+            if (seats.getStatus(index) != SeatStatus.AVAILABLE) return false;
+            undo = prepareRecord(booking, null, index);
+            transition(index, SeatStatus.OCCUPIED, booking, null);
+            record(SeatJournal.Operation.BOOK, undo);
+        } finally {
+            locks.unlock(row);
         }
-        return false;
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.BOOK, index, SeatStatus.AVAILABLE, SeatStatus.OCCUPIED);
+        return true;
     }
 
     public boolean reserveSeat(int row, String seatLetter, Reservation reservation) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat seat = seats.get(i);
-            if (seat.getRow() == row && seat.getSeatLetter().equalsIgnoreCase(seatLetter)) {
-                if (seat.getStatus() == SeatStatus.AVAILABLE) {
-                    Seat newSeat = new Seat(row, seatLetter, SeatStatus.RESERVED, 
-                                         seat.getSeatClass(), null, reservation);
-                    seats.set(i, newSeat);
-                    return true;
-                }
-                return false;
-            }
+        long start = startTiming();
+        boolean reserved = false;
+        try {
+            return reserved = reserve(row, seatLetter, reservation);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.RESERVE_SEAT, start, reserved);
+        }
+    }
+
+    boolean reserve(int row, String seatLetter, Reservation reservation) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        locks.lock(row);
+        try {
+            if (seats.getStatus(index) != SeatStatus.AVAILABLE) return false;
+            undo = prepareRecord(null, reservation, index);
+            transition(index, SeatStatus.RESERVED, null, reservation);
+            record(SeatJournal.Operation.RESERVE, undo);
+        } finally {
+            locks.unlock(row);
         }
-        return false;
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.RESERVE, index, SeatStatus.AVAILABLE, SeatStatus.RESERVED);
+        trackReservation(index, reservation);
+        return true;
     }
+
     public boolean confirmReservation(int row, String seatLetter, String bookingNumber) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat seat = seats.get(i);
-            if (seat.getRow() == row && seat.getSeatLetter().equalsIgnoreCase(seatLetter) 
-                && seat.getStatus() == SeatStatus.RESERVED) {
-                
-                Reservation res = seat.getReservation();
-                Booking booking = new Booking(res.passengerName(), bookingNumber, 
-                                            res.specialRequests());
-                Seat newSeat = new Seat(row, seatLetter, SeatStatus.OCCUPIED, 
-                                      seat.getSeatClass(), booking, null);
-                seats.set(i, newSeat);
-                return true;
-            }
+        long start = startTiming();
+        boolean confirmed = false;
+        try {
+            return confirmed = confirm(row, seatLetter, bookingNumber);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.CONFIRM_RESERVATION, start, confirmed);
+        }
+    }
+
+    boolean confirm(int row, String seatLetter, String bookingNumber) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        locks.lock(row);
+        try {
+            if (seats.getStatus(index) != SeatStatus.RESERVED) return false;
+
+            Reservation res = seats.getReservation(index);
+            Booking booking = new Booking(res.passengerName(), bookingNumber,
+                                          res.specialRequests());
+            undo = prepareRecord(booking, null, index);
+            transition(index, SeatStatus.OCCUPIED, booking, null);
+            record(SeatJournal.Operation.CONFIRM, undo);
+        } finally {
+            locks.unlock(row);
         }
-        return false;
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.CONFIRM, index, SeatStatus.RESERVED, SeatStatus.OCCUPIED);
+        return true;
     }
+
+    /**
+     * Frees every reservation whose expiration time has passed. Only holds that are due are
+     * touched; the seat list is not scanned.
+     */
     public void releaseExpiredReservations() {
-        Instant now = Instant.now();
-        seats.replaceAll(seat -> {
-            if (seat.getStatus() == SeatStatus.RESERVED 
-                && seat.getReservation().expirationTime().isBefore(now)) {
-                return new Seat(seat.getRow(), seat.getSeatLetter(), SeatStatus.AVAILABLE,
-                              seat.getSeatClass(), null, null);
+        long start = startTiming();
+        boolean completed = false;
+        try {
+            expireDueReservations();
+            completed = true;
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.RELEASE_EXPIRED_RESERVATIONS, start, completed);
+        }
+    }
+
+    private void expireDueReservations() {
+        ReservationExpirySweepEvent event = new ReservationExpirySweepEvent();
+        event.begin();
+        Instant now = null;
+        int due = 0;
+        int expired = 0;
+        while (true) {
+            ReservationHold hold;
+            synchronized (reservationHolds) {
+                if (reservationHolds.isEmpty()) break;
+                if (now == null) now = Instant.now();
+                if (!reservationHolds.peek().deadline().isBefore(now)) break;
+                hold = reservationHolds.poll();
             }
-            return seat;
-        });
+            due++;
+            if (expire(hold.index(), hold.reservation())) {
+                expired++;
+                log.info("Reservation {} expired", hold.reservation().reservationId());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.aircraftType = layout.getAircraftType();
+            event.due = due;
+            event.expired = expired;
+            event.commit();
+        }
     }
-    public boolean cancelSeat(int row, String seatLetter) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat seat = seats.get(i);
-            if (seat.getRow() == row && seat.getSeatLetter().equalsIgnoreCase(seatLetter)) {
-                if (seat.getStatus() == SeatStatus.RESERVED || seat.getStatus() == SeatStatus.OCCUPIED) {
-                    seats.set(i, new Seat(
-                        row,
-                        seatLetter,
-                        SeatStatus.AVAILABLE,
-                        seat.getSeatClass(),
-                        null,  // Clear booking
-                        null   // Clear reservation
-                    ));
-                    return true;
-                }
-                return false;
+
+    /** Frees the seat at {@code index} if it is still held by {@code reservation}. */
+    boolean expire(int index, Reservation reservation) {
+        int row = seats.getRow(index);
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        locks.lock(row);
+        try {
+            if (!isHeldBy(index, reservation)) return false;
+            undo = prepareRecord(null, null, index);
+            transition(index, SeatStatus.AVAILABLE, null, null);
+            record(SeatJournal.Operation.EXPIRE, undo);
+        } finally {
+            locks.unlock(row);
+        }
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.EXPIRE, index, SeatStatus.RESERVED, SeatStatus.AVAILABLE);
+        return true;
+    }
+
+    /** Number of seats currently held by a reservation. */
+    public int getPendingReservationCount() {
+        int pending = 0;
+        for (AtomicIntegerArray counts : statusCounts) {
+            pending += counts.get(SeatStatus.RESERVED.ordinal());
+        }
+        return pending;
+    }
+
+    /** Expiration time of the next reservation to run out, or {@code null} if nothing is held. */
+    public Instant getNextReservationDeadline() {
+        synchronized (reservationHolds) {
+            while (!reservationHolds.isEmpty()) {
+                ReservationHold next = reservationHolds.peek();
+                if (isHeldBy(next.index(), next.reservation())) return next.deadline();
+                reservationHolds.poll();
             }
+            return null;
         }
-        return false;
+    }
+
+    private boolean isHeldBy(int index, Reservation reservation) {
+        return seats.getStatus(index) == SeatStatus.RESERVED
+                && reservation.equals(seats.getReservation(index));
+    }
+
+    public boolean cancelSeat(int row, String seatLetter) {
+        long start = startTiming();
+        boolean cancelled = false;
+        try {
+            return cancelled = cancel(row, seatLetter);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.CANCEL_SEAT, start, cancelled);
+        }
+    }
+
+    boolean cancel(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        SeatStatus status;
+        locks.lock(row);
+        try {
+            status = seats.getStatus(index);
+            if (status != SeatStatus.RESERVED && status != SeatStatus.OCCUPIED) return false;
+            undo = prepareRecord(null, null, index);
+            transition(index, SeatStatus.AVAILABLE, null, null);  // Clear booking and reservation
+            record(SeatJournal.Operation.CANCEL, undo);
+        } finally {
+            locks.unlock(row);
+        }
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.CANCEL, index, status, SeatStatus.AVAILABLE);
+        return true;
     }
 
     public boolean swapSeats(int row1, String seatLetter1, int row2, String seatLetter2) {
-        if (row1 == row2 && seatLetter1.equalsIgnoreCase(seatLetter2)) return false;
-        
-        int index1 = -1, index2 = -1;
-        Seat seat1 = null, seat2 = null;
-        
-        // Find both seats
-        for (int i = 0; i < seats.size(); i++) {
-            Seat s = seats.get(i);
-            if (s.getRow() == row1 && s.getSeatLetter().equalsIgnoreCase(seatLetter1)) {
-                index1 = i;
-                seat1 = s;
-            }
-            if (s.getRow() == row2 && s.getSeatLetter().equalsIgnoreCase(seatLetter2)) {
-                index2 = i;
-                seat2 = s;
+        long start = startTiming();
+        boolean swapped = false;
+        try {
+            return swapped = swap(row1, seatLetter1, row2, seatLetter2);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.SWAP_SEATS, start, swapped);
+        }
+    }
+
+    boolean swap(int row1, String seatLetter1, int row2, String seatLetter2) {
+        int index1 = indexOf(row1, seatLetter1);
+        int index2 = indexOf(row2, seatLetter2);
+        if (index1 < 0 || index2 < 0 || index1 == index2) return false;
+
+        SeatTransitionEvent event1 = new SeatTransitionEvent();
+        SeatTransitionEvent event2 = new SeatTransitionEvent();
+        event1.begin();
+        event2.begin();
+        Reservation reservation1 = null;
+        Reservation reservation2 = null;
+        SeatStatus status;
+        JournalUndo undo;
+        locks.lockPair(row1, row2);
+        try {
+            status = seats.getStatus(index1);
+            if (status != seats.getStatus(index2)) return false;
+            if (status != SeatStatus.OCCUPIED && status != SeatStatus.RESERVED) return false;
+            undo = prepareRecord(index1, index2);
+
+            // Perform swap based on status
+            if (status == SeatStatus.OCCUPIED) {
+                Booking booking1 = seats.getBooking(index1);
+                transition(index1, SeatStatus.OCCUPIED, seats.getBooking(index2), null);
+                transition(index2, SeatStatus.OCCUPIED, booking1, null);
+            } else {
+                reservation1 = seats.getReservation(index1);
+                reservation2 = seats.getReservation(index2);
+                transition(index1, SeatStatus.RESERVED, null, reservation2);
+                transition(index2, SeatStatus.RESERVED, null, reservation1);
             }
+            // Both seats go into one record so the swap is never replayed half-done
+            record(SeatJournal.Operation.SWAP, undo);
+        } finally {
+            locks.unlockPair(row1, row2);
         }
-        
-        if (index1 == -1 || index2 == -1) return false;
-        if (seat1.getStatus() != seat2.getStatus()) return false;
-        
-        // Perform swap based on status
-        if (seat1.getStatus() == SeatStatus.RESERVED) {
-            Seat new1 = new Seat(seat1.getRow(), seat1.getSeatLetter(), SeatStatus.RESERVED,
-                               seat1.getSeatClass(), null, seat2.getReservation());
-            Seat new2 = new Seat(seat2.getRow(), seat2.getSeatLetter(), SeatStatus.RESERVED,
-                               seat2.getSeatClass(), null, seat1.getReservation());
-            seats.set(index1, new1);
-            seats.set(index2, new2);
-            return true;
-        } else if (seat1.getStatus() == SeatStatus.OCCUPIED) {
-            Seat new1 = new Seat(seat1.getRow(), seat1.getSeatLetter(), SeatStatus.OCCUPIED,
-                               seat1.getSeatClass(), seat2.getBooking(), null);
-            Seat new2 = new Seat(seat2.getRow(), seat2.getSeatLetter(), SeatStatus.OCCUPIED,
-                               seat2.getSeatClass(), seat1.getBooking(), null);
-            seats.set(index1, new1);
-            seats.set(index2, new2);
-            return true;
-        }
-        return false;
+        commit(undo);
+        // The seats keep their status and trade passengers
+        event1.commit(layout, SeatJournal.Operation.SWAP, index1, status, status);
+        event2.commit(layout, SeatJournal.Operation.SWAP, index2, status, status);
+        if (reservation1 == null) return true;
+        trackReservation(index1, reservation2);
+        trackReservation(index2, reservation1);
+        return true;
     }
+
     public boolean blockSeat(int row, String seatLetter) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat seat = seats.get(i);
-            if (seat.getRow() == row && seat.getSeatLetter().equalsIgnoreCase(seatLetter)) {
-                seats.set(i, new Seat(
-                    row,
-                    seatLetter,
-                    SeatStatus.BLOCKED,
-                    seat.getSeatClass(),
-                    null,  // Clear booking
-                    null   // Clear reservation
-                ));
-                return true;
-            }
+        long start = startTiming();
+        boolean blocked = false;
+        try {
+            return blocked = block(row, seatLetter);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.BLOCK_SEAT, start, blocked);
+        }
+    }
+
+    boolean block(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        SeatStatus previous;
+        locks.lock(row);
+        try {
+            previous = seats.getStatus(index);
+            undo = prepareRecord(null, null, index);
+            transition(index, SeatStatus.BLOCKED, null, null);  // Clear booking and reservation
+            record(SeatJournal.Operation.BLOCK, undo);
+        } finally {
+            locks.unlock(row);
         }
-        return false;
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.BLOCK, index, previous, SeatStatus.BLOCKED);
+        return true;
     }
     
     public boolean releaseSeat(int row, String seatLetter) {
-        for (int i = 0; i < seats.size(); i++) {
-            Seat seat = seats.get(i);
-            if (seat.getRow() == row && seat.getSeatLetter().equalsIgnoreCase(seatLetter)
-                && seat.getStatus() == SeatStatus.BLOCKED) {
-                seats.set(i, new Seat(
-                    row,
-                    seatLetter,
-                    SeatStatus.AVAILABLE,
-                    seat.getSeatClass(),
-                    null,
-                    null
-                ));
-                return true;
-            }
+        long start = startTiming();
+        boolean released = false;
+        try {
+            return released = release(row, seatLetter);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.RELEASE_SEAT, start, released);
         }
-        return false;
+    }
+
+    boolean release(int row, String seatLetter) {
+        int index = indexOf(row, seatLetter);
+        if (index < 0) return false;
+        SeatTransitionEvent event = new SeatTransitionEvent();
+        event.begin();
+        JournalUndo undo;
+        locks.lock(row);
+        try {
+            if (seats.getStatus(index) != SeatStatus.BLOCKED) return false;
+            undo = prepareRecord(null, null, index);
+            transition(index, SeatStatus.AVAILABLE, null, null);
+            record(SeatJournal.Operation.RELEASE, undo);
+        } finally {
+            locks.unlock(row);
+        }
+        commit(undo);
+        event.commit(layout, SeatJournal.Operation.RELEASE, index, SeatStatus.BLOCKED, SeatStatus.AVAILABLE);
+        return true;
     }
 
     public List<Seat> findAvailableSeats(SeatClass seatClass, SeatPosition position, boolean exitOnly) {
-        return seats.stream()
-            .filter(seat -> seat.getStatus() == SeatStatus.AVAILABLE)
-            .filter(seat -> seatClass == null || seat.getSeatClass() == seatClass)
-            .filter(seat -> position == null || seat.getPosition() == position)
-            .filter(seat -> !exitOnly || seat.isExitRow())
-            .collect(Collectors.toList());
+        long start = startTiming();
+        List<Seat> result = null;
+        try {
+            return result = collectAvailableSeats(seatClass, position, exitOnly);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.FIND_AVAILABLE_SEATS, start, result != null);
+        }
+    }
+
+    private List<Seat> collectAvailableSeats(SeatClass seatClass, SeatPosition position, boolean exitOnly) {
+        List<Seat> result = new ArrayList<>();
+        locks.lockAll();
+        try {
+            bitsets.forEach(SeatStatus.AVAILABLE, seatClass, position, exitOnly, index -> result.add(seats.get(index)));
+        } finally {
+            locks.unlockAll();
+        }
+        return result;
+    }
+
+    /** Same filters as {@link #findAvailableSeats}, but only counts the matches. */
+    public int countAvailableSeats(SeatClass seatClass, SeatPosition position, boolean exitOnly) {
+        long start = startTiming();
+        boolean completed = false;
+        try {
+            int count = bitsets.count(SeatStatus.AVAILABLE, seatClass, position, exitOnly);
+            completed = true;
+            return count;
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.COUNT_AVAILABLE_SEATS, start, completed);
+        }
+    }
+
+    /** Passes every seat to {@code action} in seat order, see {@link #forEachSeat(SeatStatus, Consumer)}. */
+    public void forEachSeat(Consumer<? super Seat> action) {
+        forEachSeat(null, action);
+    }
+
+    /**
+     * Passes every seat in {@code status}, or every seat if {@code status} is {@code null}, to
+     * {@code action} in seat order without collecting them first. Each row is read under its lock
+     * and handed out after the lock is released, so the action may block, e.g. on I/O. Unlike
+     * {@link #getOccupiedSeats} the view is consistent per row only.
+     */
+    public void forEachSeat(SeatStatus status, Consumer<? super Seat> action) {
+        long start = startTiming();
+        boolean completed = false;
+        try {
+            visitSeats(status, action);
+            completed = true;
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.FOR_EACH_SEAT, start, completed);
+        }
+    }
+
+    private void visitSeats(SeatStatus status, Consumer<? super Seat> action) {
+        Seat[] rowSeats = new Seat[Long.SIZE];
+        for (int row = 0; row <= layout.getMaxRow(); row++) {
+            int offset = layout.getRowOffset(row);
+            if (offset < 0) continue;
+            int count = 0;
+            locks.lock(row);
+            try {
+                int width = layout.getRowWidth(row);
+                long bits = status == null ? -1L >>> (Long.SIZE - width) : bitsets.statusBits(status, offset, width);
+                for (; bits != 0; bits &= bits - 1) {
+                    rowSeats[count++] = seats.get(offset + Long.numberOfTrailingZeros(bits));
+                }
+            } finally {
+                locks.unlock(row);
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(rowSeats[i]);
+                rowSeats[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Passes every seat whose status, booking or reservation changed after {@code sequence} to
+     * {@code action} together with the sequence of its latest change, in seat order. Rows without
+     * such changes are skipped; the others are read under their lock like {@link #forEachSeat}.
+     * Pass 0 to receive every seat changed since the plan was created. A sequence from another
+     * plan instance, e.g. from before a restart, means nothing here; see {@link ChangeCursor}.
+     *
+     * @return the sequence to pass next time to receive all changes after this call. Changes made
+     *         while this method runs may be delivered again then.
+     */
+    public long forEachSeatChangedSince(long sequence, ObjLongConsumer<? super Seat> action) {
+        long start = startTiming();
+        boolean completed = false;
+        try {
+            long result = visitSeatsChangedSince(sequence, action);
+            completed = true;
+            return result;
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.FOR_EACH_SEAT_CHANGED_SINCE, start, completed);
+        }
+    }
+
+    private long visitSeatsChangedSince(long sequence, ObjLongConsumer<? super Seat> action) {
+        long resumeSequence = stampedChangeSequence();
+        Seat[] rowSeats = new Seat[Long.SIZE];
+        long[] rowSeatSequences = new long[Long.SIZE];
+        for (int row = 0; row <= layout.getMaxRow(); row++) {
+            int offset = layout.getRowOffset(row);
+            if (offset < 0 || rowSequences.get(row) <= sequence) continue;
+            int count = 0;
+            locks.lock(row);
+            try {
+                int width = layout.getRowWidth(row);
+                for (int index = offset; index < offset + width; index++) {
+                    long seatSequence = seatSequences.get(index);
+                    if (seatSequence > sequence) {
+                        rowSeatSequences[count] = seatSequence;
+                        rowSeats[count++] = seats.get(index);
+                    }
+                }
+            } finally {
+                locks.unlock(row);
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(rowSeats[i], rowSeatSequences[i]);
+                rowSeats[i] = null;
+            }
+        }
+        return resumeSequence;
     }
 
     public List<Seat> getOccupiedSeats() {
-        return seats.stream()
-                .filter(seat -> seat.getStatus() == SeatStatus.OCCUPIED)
-                .collect(Collectors.toList());
+        long start = startTiming();
+        List<Seat> result = null;
+        try {
+            return result = collectOccupiedSeats();
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.GET_OCCUPIED_SEATS, start, result != null);
+        }
+    }
+
+    private List<Seat> collectOccupiedSeats() {
+        List<Seat> result = new ArrayList<>();
+        locks.lockAll();
+        try {
+            bitsets.forEach(SeatStatus.OCCUPIED, null, null, false, index -> result.add(seats.get(index)));
+        } finally {
+            locks.unlockAll();
+        }
+        return result;
+    }
+
+    /**
+     * Books seats for a group travelling together in {@code seatClass}, one seat per booking.
+     * The group is seated in a single row if any row has enough adjacent free seats; otherwise it is
+     * split across two neighbouring rows, as evenly as possible and with the two blocks lined up.
+     * Either every booking gets a seat or none does.
+     *
+     * @return the booked seats in booking order, or an empty list if the group does not fit
+     */
+    public List<Seat> bookGroup(SeatClass seatClass, List<Booking> bookings) {
+        long start = startTiming();
+        List<Seat> booked = null;
+        try {
+            return booked = seatGroup(seatClass, bookings);
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.BOOK_GROUP, start, booked != null && booked.size() == bookings.size());
+        }
+    }
+
+    private List<Seat> seatGroup(SeatClass seatClass, List<Booking> bookings) {
+        int groupSize = bookings.size();
+        if (groupSize == 0) return List.of();
+        for (SeatSection section : layout.getSections()) {
+            if (section.getSeatClass() != seatClass || groupSize > 2 * section.getSeatsPerRow()) continue;
+            int[] indices;
+            while ((indices = findGroupSeats(section, groupSize)) != null) {
+                List<Seat> booked = bookGroupSeats(indices, bookings);
+                if (booked != null) return booked;
+                // Somebody took one of the seats in the meantime, search again
+            }
+        }
+        return List.of();
+    }
+
+    private int[] findGroupSeats(SeatSection section, int groupSize) {
+        int width = section.getSeatsPerRow();
+        for (int row = section.getStartRow(); row <= section.getEndRow(); row++) {
+            long starts = runStarts(freeSeats(row), groupSize);
+            if (starts != 0) {
+                int[] indices = new int[groupSize];
+                fillSeatRange(indices, 0, row, Long.numberOfTrailingZeros(starts), groupSize);
+                return indices;
+            }
+        }
+        // Try the most even split first: 2+2 before 3+1
+        for (int larger = (groupSize + 1) / 2; larger <= Math.min(width, groupSize - 1); larger++) {
+            int smaller = groupSize - larger;
+            for (int row = section.getStartRow(); row < section.getEndRow(); row++) {
+                int[] indices = splitAcrossRows(row, larger, smaller);
+                if (indices == null) indices = splitAcrossRows(row, smaller, larger);
+                if (indices != null) return indices;
+            }
+        }
+        return null;
+    }
+
+    private int[] splitAcrossRows(int row, int front, int back) {
+        long frontStarts = runStarts(freeSeats(row), front);
+        long backStarts = runStarts(freeSeats(row + 1), back);
+        if (frontStarts == 0 || backStarts == 0) return null;
+
+        int frontStart = Long.numberOfTrailingZeros(frontStarts);
+        int backStart = -1;
+        for (long bits = backStarts; bits != 0; bits &= bits - 1) {
+            int candidate = Long.numberOfTrailingZeros(bits);
+            if (backStart < 0 || Math.abs(candidate - frontStart) < Math.abs(backStart - frontStart)) {
+                backStart = candidate;
+            }
+        }
+        int[] indices = new int[front + back];
+        fillSeatRange(indices, 0, row, frontStart, front);
+        fillSeatRange(indices, front, row + 1, backStart, back);
+        return indices;
+    }
+
+    private long freeSeats(int row) {
+        return bitsets.statusBits(SeatStatus.AVAILABLE, layout.getRowOffset(row), layout.getRowWidth(row));
+    }
+
+    // Bit i is set if seats i .. i+length-1 are all set in mask
+    private static long runStarts(long mask, int length) {
+        long starts = mask;
+        for (int k = 1; k < length && starts != 0; k++) {
+            starts &= mask >>> k;
+        }
+        return starts;
+    }
+
+    private void fillSeatRange(int[] indices, int position, int row, int firstLetter, int count) {
+        for (int i = 0; i < count; i++) {
+            indices[position + i] = layout.getRowOffset(row) + firstLetter + i;
+        }
+    }
+
+    /**
+     * Books {@code indices[i]} for {@code bookings.get(i)} if all of them are still available.
+     *
+     * @return the booked seats, or {@code null} if one of them was taken
+     */
+    List<Seat> bookGroupSeats(int[] indices, List<Booking> bookings) {
+        int firstRow = seats.getRow(indices[0]);
+        int lastRow = seats.getRow(indices[indices.length - 1]);
+        List<Seat> booked = new ArrayList<>(indices.length);
+        SeatTransitionEvent[] events = SeatTransitionEvent.beginGroup(indices.length);
+        JournalUndo undo;
+        locks.lockPair(firstRow, lastRow);
+        try {
+            for (int index : indices) {
+                if (seats.getStatus(index) != SeatStatus.AVAILABLE) return null;
+            }
+            undo = prepareRecord(bookings, indices);
+            for (int i = 0; i < indices.length; i++) {
+                transition(indices[i], SeatStatus.OCCUPIED, bookings.get(i), null);
+                booked.add(seats.get(indices[i]));
+            }
+            record(SeatJournal.Operation.BOOK_GROUP, undo);
+        } finally {
+            locks.unlockPair(firstRow, lastRow);
+        }
+        commit(undo);
+        SeatTransitionEvent.commitGroup(events, layout, indices);
+        return booked;
     }
 
+    /**
+     * Returns the occupancy per class from the counters maintained by {@link #transition}.
+     * With {@link #setVerifyOccupancyCounters verification} enabled the counters are checked
+     * against a full scan of the plan first.
+     */
     public Map<SeatClass, ClassStats> calculateOccupancyStats() {
+        long start = startTiming();
+        Map<SeatClass, ClassStats> stats = null;
+        try {
+            return stats = collectOccupancyStats();
+        } finally {
+            stopTiming(SeatPlanMetrics.Operation.CALCULATE_OCCUPANCY_STATS, start, stats != null);
+        }
+    }
+
+    private Map<SeatClass, ClassStats> collectOccupancyStats() {
+        if (verifyOccupancyCounters) {
+            verifyOccupancyCounters();
+        }
         Map<SeatClass, ClassStats> stats = new EnumMap<>(SeatClass.class);
-        
         for (SeatClass seatClass : SeatClass.values()) {
-            List<Seat> classSeats = seats.stream()
-                .filter(s -> s.getSeatClass() == seatClass)
-                .toList();
-                
-            int total = classSeats.size();
-            int avail = (int) classSeats.stream()
-                .filter(s -> s.getStatus() == SeatStatus.AVAILABLE).count();
-            int occupied = (int) classSeats.stream()
-                .filter(s -> s.getStatus() == SeatStatus.OCCUPIED).count();
-            int reserved = (int) classSeats.stream()
-                .filter(s -> s.getStatus() == SeatStatus.RESERVED).count();
-            int blocked = (int) classSeats.stream()
-                .filter(s -> s.getStatus() == SeatStatus.BLOCKED).count();
-            
-            double percentage = total > 0 ? 
-                (occupied * 100.0) / total : 0.0;
-            
-            stats.put(seatClass, new ClassStats(
-                total, avail, occupied, reserved, blocked,
-                Math.round(percentage * 10) / 10.0  // Round to 1 decimal
-            ));
+            AtomicIntegerArray counts = statusCounts[seatClass.ordinal()];
+            stats.put(seatClass, toClassStats(counts.get(SeatStatus.AVAILABLE.ordinal()),
+                    counts.get(SeatStatus.OCCUPIED.ordinal()),
+                    counts.get(SeatStatus.RESERVED.ordinal()),
+                    counts.get(SeatStatus.BLOCKED.ordinal())));
         }
         return stats;
     }
-}
\ No newline at end of file
+
+    private void verifyOccupancyCounters() {
+        int[][] scanned = new int[SeatClass.values().length][SeatStatus.values().length];
+        int[][] counted = new int[SeatClass.values().length][SeatStatus.values().length];
+        locks.lockAll();
+        try {
+            for (int i = 0; i < seats.size(); i++) {
+                scanned[seats.getSeatClass(i).ordinal()][seats.getStatus(i).ordinal()]++;
+            }
+            for (int c = 0; c < counted.length; c++) {
+                for (int s = 0; s < counted[c].length; s++) {
+                    counted[c][s] = statusCounts[c].get(s);
+                }
+            }
+        } finally {
+            locks.unlockAll();
+        }
+        for (SeatClass seatClass : SeatClass.values()) {
+            if (!Arrays.equals(scanned[seatClass.ordinal()], counted[seatClass.ordinal()])) {
+                throw new IllegalStateException(String.format(
+                        "Occupancy counters for %s are %s but a full scan found %s", seatClass,
+                        Arrays.toString(counted[seatClass.ordinal()]),
+                        Arrays.toString(scanned[seatClass.ordinal()])));
+            }
+        }
+    }
+
+    private static ClassStats toClassStats(int avail, int occupied, int reserved, int blocked) {
+        int total = avail + occupied + reserved + blocked;
+        double percentage = total > 0 ?
+            (occupied * 100.0) / total : 0.0;
+
+        return new ClassStats(
+            total, avail, occupied, reserved, blocked,
+            Math.round(percentage * 10) / 10.0  // Round to 1 decimal
+        );
+    }
+
+    private record ReservationHold(Instant deadline, int index, Reservation reservation) {}
+
+    /** Seats as they were before a journaled operation changed them, kept until its record is durable. */
+    private static final class JournalUndo {
+        final SeatJournal journal;
+        final int[] indices;
+        final SeatStatus[] statuses;
+        final Booking[] bookings;
+        final Reservation[] reservations;
+        long sequence;
+        long position;
+
+        JournalUndo(SeatJournal journal, SeatStore seats, int[] indices) {
+            this.journal = journal;
+            this.indices = indices;
+            this.statuses = new SeatStatus[indices.length];
+            this.bookings = new Booking[indices.length];
+            this.reservations = new Reservation[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                statuses[i] = seats.getStatus(indices[i]);
+                bookings[i] = seats.getBooking(indices[i]);
+                reservations[i] = seats.getReservation(indices[i]);
+            }
+        }
+    }
+}
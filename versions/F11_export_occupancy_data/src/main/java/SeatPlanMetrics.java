@@ -0,0 +1,123 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, failures and latency histograms of the public {@link SeatPlan} operations, recorded by
+ * every plan the metrics are {@link SeatPlan#setMetrics attached} to; one instance may be shared by
+ * the plans of many flights to see their combined figures. A call fails if it throws or does not
+ * do what was asked: a boolean operation returns {@code false}, {@code getSeat} finds no seat or
+ * {@code bookGroup} cannot seat the group. Recording is lock-free.
+ */
+public class SeatPlanMetrics {
+    private static final Logger log = LoggerFactory.getLogger(SeatPlanMetrics.class);
+
+    /** The timed operations. Plain accessors of plan state, such as counters, are not timed. */
+    public enum Operation {
+        GET_SEAT("getSeat"),
+        GET_SEATS_BY_CLASS_AND_ROW("getSeatsByClassAndRow"),
+        GET_SEATS("getSeats"),
+        SNAPSHOT("snapshot"),
+        BOOK_SEAT("bookSeat"),
+        RESERVE_SEAT("reserveSeat"),
+        CONFIRM_RESERVATION("confirmReservation"),
+        RELEASE_EXPIRED_RESERVATIONS("releaseExpiredReservations"),
+        CANCEL_SEAT("cancelSeat"),
+        SWAP_SEATS("swapSeats"),
+        BLOCK_SEAT("blockSeat"),
+        RELEASE_SEAT("releaseSeat"),
+        FIND_AVAILABLE_SEATS("findAvailableSeats"),
+        COUNT_AVAILABLE_SEATS("countAvailableSeats"),
+        /** Includes the time spent in the caller's action. */
+        FOR_EACH_SEAT("forEachSeat"),
+        /** Includes the time spent in the caller's action. */
+        FOR_EACH_SEAT_CHANGED_SINCE("forEachSeatChangedSince"),
+        GET_OCCUPIED_SEATS("getOccupiedSeats"),
+        BOOK_GROUP("bookGroup"),
+        CALCULATE_OCCUPANCY_STATS("calculateOccupancyStats");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    // Indexed by operation ordinal
+    private final OperationStats[] stats = new OperationStats[Operation.values().length];
+
+    public SeatPlanMetrics() {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new OperationStats();
+        }
+    }
+
+    public void record(Operation operation, long nanos, boolean succeeded) {
+        OperationStats operationStats = stats[operation.ordinal()];
+        (succeeded ? operationStats.successes : operationStats.failures).increment();
+        operationStats.latency.record(nanos);
+    }
+
+    public OperationSnapshot snapshot(Operation operation) {
+        OperationStats operationStats = stats[operation.ordinal()];
+        return new OperationSnapshot(operation, operationStats.successes.sum(), operationStats.failures.sum(),
+                operationStats.latency.snapshot());
+    }
+
+    /** Snapshots of every operation, in declaration order. */
+    public Map<Operation, OperationSnapshot> snapshot() {
+        Map<Operation, OperationSnapshot> snapshots = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            snapshots.put(operation, snapshot(operation));
+        }
+        return snapshots;
+    }
+
+    /** Logs one line per operation that was called at least once, with its totals since creation. */
+    public void logSummary() {
+        boolean any = false;
+        for (OperationSnapshot snapshot : snapshot().values()) {
+            if (snapshot.calls() == 0) continue;
+            any = true;
+            LatencyHistogram.Snapshot latency = snapshot.latency();
+            log.info("{}: {} calls, {} failed ({}%), mean {} µs, p50 {} µs, p99 {} µs, p99.9 {} µs, max {} µs",
+                    snapshot.operation().getMethodName(), snapshot.calls(), snapshot.failures(),
+                    String.format("%.1f", snapshot.failureRatio() * 100),
+                    micros(latency.meanNanos()), micros(latency.percentileNanos(50)),
+                    micros(latency.percentileNanos(99)), micros(latency.percentileNanos(99.9)),
+                    micros(latency.maxNanos()));
+        }
+        if (!any) log.info("No seat operations recorded yet");
+    }
+
+    private static String micros(double nanos) {
+        return String.format("%.1f", nanos / 1000);
+    }
+
+    /** Counts and latencies of one operation at one moment. */
+    public record OperationSnapshot(Operation operation, long successes, long failures,
+                                    LatencyHistogram.Snapshot latency) {
+        public long calls() {
+            return successes + failures;
+        }
+
+        /** Share of calls that failed, between 0 and 1; 0 without calls. */
+        public double failureRatio() {
+            long calls = calls();
+            return calls == 0 ? 0 : (double) failures / calls;
+        }
+    }
+
+    private static final class OperationStats {
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
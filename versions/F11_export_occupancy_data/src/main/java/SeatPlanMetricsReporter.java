@@ -0,0 +1,45 @@
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** Logs the {@link SeatPlanMetrics#logSummary summary} of seat plan metrics at a fixed interval. */
+public class SeatPlanMetricsReporter implements AutoCloseable {
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ScheduledFuture<?> task;
+
+    public SeatPlanMetricsReporter(SeatPlanMetrics metrics, Duration interval) {
+        this(metrics, interval, newExecutor(), true);
+    }
+
+    /** Logs on {@code executor}, which stays open when this reporter is closed. */
+    public SeatPlanMetricsReporter(SeatPlanMetrics metrics, Duration interval, ScheduledExecutorService executor) {
+        this(metrics, interval, executor, false);
+    }
+
+    private SeatPlanMetricsReporter(SeatPlanMetrics metrics, Duration interval,
+                                    ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        long millis = interval.toMillis();
+        this.task = executor.scheduleAtFixedRate(metrics::logSummary, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    static ScheduledExecutorService newExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+}
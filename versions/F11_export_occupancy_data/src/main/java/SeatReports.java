@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Text exports of a seat plan. Rows are streamed through a {@link ReportWriter} as they are read
+ * from the plan, so exporting a large manifest needs no more memory than a small one.
+ */
+public final class SeatReports {
+    private static final String CLASS_RULE = "────────────────────────────────────────";
+    private static final String PASSENGER_RULE = "──────────────────────────────────────────────────────────────";
+    private static final int SEAT_WIDTH = 6;
+    private static final int CLASS_WIDTH = 8;
+    private static final int NAME_WIDTH = 20;
+    private static final int TICKET_WIDTH = 15;
+
+    private SeatReports() {
+    }
+
+    public static void writeOccupancyReport(Map<SeatClass, ClassStats> stats, LocalDateTime generated,
+                                            ReportWriter out) throws IOException {
+        out.text("Flight Seat Occupancy Report").newline();
+        out.text("Generated: ").text(generated.toString()).newline().newline();
+
+        for (Map.Entry<SeatClass, ClassStats> entry : stats.entrySet()) {
+            ClassStats stat = entry.getValue();
+            out.text(entry.getKey().name()).text(" Class").newline();
+            out.text(CLASS_RULE).newline();
+            out.text("Total Seats:      ").right(stat.totalSeats(), 4).newline();
+            out.text("Available:        ").right(stat.available(), 4).newline();
+            out.text("Occupied:         ").right(stat.occupied(), 4).newline();
+            out.text("Reserved:         ").right(stat.reserved(), 4).newline();
+            out.text("Blocked:          ").right(stat.blocked(), 4).newline();
+            out.text("Occupancy Rate:   ").right(stat.occupancyPercentage(), 1, 6).text('%').newline().newline();
+        }
+    }
+
+    /** Writes one line per occupied seat, reading the plan row by row while writing. */
+    public static void writePassengerList(SeatPlan plan, LocalDateTime generated, ReportWriter out) throws IOException {
+        writePassengerListHeader(generated, out);
+        try {
+            plan.forEachSeat(SeatStatus.OCCUPIED, seat -> {
+                try {
+                    writePassenger(seat, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static void writePassengerListHeader(LocalDateTime generated, ReportWriter out) throws IOException {
+        out.text("Flight Passenger List").newline();
+        out.text("Generated: ").text(generated.toString()).newline().newline();
+        out.left("Seat", SEAT_WIDTH).text(' ')
+                .left("Class", CLASS_WIDTH).text(' ')
+                .left("Passenger Name", NAME_WIDTH).text(' ')
+                .left("Ticket Number", TICKET_WIDTH).text(' ')
+                .text("Special Requests").newline();
+        out.text(PASSENGER_RULE).newline();
+    }
+
+    static void writePassenger(Seat seat, ReportWriter out) throws IOException {
+        Booking booking = seat.getBooking();
+        String requests = booking.specialRequests();
+        int labelLength = stringSize(seat.getRow()) + seat.getSeatLetter().length();
+        out.right(seat.getRow(), 0).text(seat.getSeatLetter()).spaces(SEAT_WIDTH - labelLength).text(' ')
+                .left(seat.getSeatClass().name(), CLASS_WIDTH).text(' ')
+                .left(booking.passengerName(), NAME_WIDTH).text(' ')
+                .left(booking.bookingNumber(), TICKET_WIDTH).text(' ')
+                .text(requests == null || requests.isBlank() ? "-" : requests).newline();
+    }
+
+    private static int stringSize(int value) {
+        int size = value < 0 ? 2 : 1;
+        for (int rest = Math.abs(value); rest >= 10; rest /= 10) size++;
+        return size;
+    }
+}
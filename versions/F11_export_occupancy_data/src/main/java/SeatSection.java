@@ -7,5 +7,9 @@ public class SeatSection {
     private SeatClass seatClass;
     private int startRow;
     private int endRow;
-    private int seatsPerRow;
-}
\ No newline at end of file
+    private String seatLetters;
+
+    public int getSeatsPerRow() {
+        return seatLetters.length();
+    }
+}
@@ -0,0 +1,167 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a {@link SeatPlan}'s seat state, used together with the {@link SeatJournal}
+ * so recovery only replays the records written after the snapshot. Layout:
+ * <pre>
+ *   int    magic, short version
+ *   string aircraft type, int seat count
+ *   long   journal position the snapshot covers
+ *   byte[seat count] status per seat
+ *   payload of every OCCUPIED and RESERVED seat in seat order, see {@link SeatStateCodec}
+ *   int    CRC32 of everything before
+ * </pre>
+ * The journal position is read before the seats are copied. Journal records carry the state of a
+ * seat rather than the operation, so a record after that position whose change is already in the
+ * snapshot just sets the seat to the same state again on replay.
+ */
+public final class SeatSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(SeatSnapshot.class);
+    static final int MAGIC = 0x53534E50;  // "SSNP"
+    static final short VERSION = 1;
+
+    private SeatSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of {@code plan} to {@code file}, atomically replacing an older one.
+     * If the plan has a journal, everything it covers is made durable first.
+     *
+     * @return the journal position covered by the snapshot
+     */
+    public static long write(SeatPlan plan, Path file) throws IOException {
+        SeatJournal journal = plan.getJournal();
+        long journalPosition = SeatJournal.HEADER_SIZE;
+        if (journal != null) {
+            journalPosition = journal.getPosition();
+            journal.commit(journalPosition);
+        }
+        List<Seat> seats = plan.getSeats();
+
+        ByteBuffer buffer;
+        int capacity = 64 + seats.size() * 32;
+        while (true) {
+            try {
+                buffer = encode(plan.getLayout(), seats, journalPosition, ByteBuffer.allocate(capacity));
+                break;
+            } catch (BufferOverflowException e) {
+                capacity *= 2;
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Wrote snapshot {} of {} seats at journal position {}", file, seats.size(), journalPosition);
+        return journalPosition;
+    }
+
+    /**
+     * Rebuilds a plan from the latest snapshot and the journal records written after it. Either
+     * file may be missing; without a snapshot the whole journal is replayed, and a damaged snapshot
+     * is ignored in favour of the full journal. Once {@link SeatJournal#truncateBefore} dropped the
+     * records a snapshot covers, the journal alone is not enough and recovery without that snapshot
+     * fails. Attach a journal to the returned plan to continue recording.
+     */
+    public static SeatPlan recover(SeatLayout layout, Function<SeatLayout, SeatPlan> planFactory,
+                                   Path snapshotFile, Path journalFile) throws IOException {
+        long started = System.nanoTime();
+        SeatPlan plan = planFactory.apply(layout);
+        long journalPosition = SeatJournal.HEADER_SIZE;
+        if (Files.exists(snapshotFile)) {
+            try {
+                journalPosition = load(snapshotFile, plan);
+            } catch (IOException e) {
+                log.warn("Ignoring snapshot {}, replaying the whole journal: {}", snapshotFile, e.getMessage());
+                plan = planFactory.apply(layout);
+            }
+        }
+        long replayed = Files.exists(journalFile) ? SeatJournal.replay(journalFile, journalPosition, plan) : 0;
+        log.info("Recovered {} seats of {} with {} journal records in {} ms", layout.getSeatCount(),
+                layout.getAircraftType(), replayed, (System.nanoTime() - started) / 1_000_000);
+        return plan;
+    }
+
+    /**
+     * Loads {@code file} into an empty plan.
+     *
+     * @return the journal position the snapshot covers
+     * @throws IllegalStateException if the snapshot was taken of a different aircraft layout
+     */
+    static long load(Path file, SeatPlan plan) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < Integer.BYTES || !checksumMatches(buffer)) {
+            throw new IOException(file + " is damaged");
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException(file + " is not a seat snapshot");
+            }
+            String aircraftType = SeatStateCodec.getString(buffer);
+            int seatCount = buffer.getInt();
+            SeatLayout layout = plan.getLayout();
+            if (!layout.getAircraftType().equals(aircraftType) || layout.getSeatCount() != seatCount) {
+                throw new IllegalStateException("Snapshot " + file + " holds " + seatCount + " seats of "
+                        + aircraftType + ", plan is " + layout.getAircraftType());
+            }
+            long journalPosition = buffer.getLong();
+            byte[] statuses = new byte[seatCount];
+            buffer.get(statuses);
+            for (int index = 0; index < seatCount; index++) {
+                SeatStatus status = SeatStateCodec.status(statuses[index]);
+                if (status == SeatStatus.AVAILABLE) continue;
+                Booking booking = status == SeatStatus.OCCUPIED ? SeatStateCodec.getBooking(buffer) : null;
+                Reservation reservation = status == SeatStatus.RESERVED ? SeatStateCodec.getReservation(buffer) : null;
+                plan.restore(index, status, booking, reservation);
+            }
+            return journalPosition;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(file + " is damaged", e);
+        }
+    }
+
+    private static ByteBuffer encode(SeatLayout layout, List<Seat> seats, long journalPosition, ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putShort(VERSION);
+        SeatStateCodec.putString(buffer, layout.getAircraftType());
+        buffer.putInt(seats.size());
+        buffer.putLong(journalPosition);
+        for (Seat seat : seats) {
+            buffer.put((byte) seat.getStatus().ordinal());
+        }
+        for (Seat seat : seats) {
+            SeatStateCodec.putPayload(buffer, seat.getStatus(), seat.getBooking(), seat.getReservation());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return buffer.flip();
+    }
+
+    // Leaves the buffer limited to the content without the trailing checksum
+    private static boolean checksumMatches(ByteBuffer buffer) {
+        int contentLength = buffer.limit() - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, contentLength);
+        boolean matches = (int) crc.getValue() == buffer.getInt(contentLength);
+        buffer.limit(contentLength);
+        return matches;
+    }
+}
@@ -0,0 +1,98 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Binary encoding of a seat's payload shared by {@link SeatJournal} and {@link SeatSnapshot}:
+ * nothing for AVAILABLE and BLOCKED, the booking (name, booking number, requests) for OCCUPIED and
+ * the reservation (name, reservation id, expiration as epoch second and nano, requests) for
+ * RESERVED. Strings are a short byte length followed by UTF-8, length -1 meaning {@code null}.
+ */
+final class SeatStateCodec {
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+    private static final long NO_EXPIRATION = Long.MIN_VALUE;
+
+    private SeatStateCodec() {
+    }
+
+    static void putPayload(ByteBuffer buffer, SeatStatus status, Booking booking, Reservation reservation) {
+        if (status == SeatStatus.OCCUPIED) {
+            putString(buffer, booking.passengerName());
+            putString(buffer, booking.bookingNumber());
+            putString(buffer, booking.specialRequests());
+        } else if (status == SeatStatus.RESERVED) {
+            putString(buffer, reservation.passengerName());
+            putString(buffer, reservation.reservationId());
+            Instant expiration = reservation.expirationTime();
+            buffer.putLong(expiration == null ? NO_EXPIRATION : expiration.getEpochSecond());
+            buffer.putInt(expiration == null ? 0 : expiration.getNano());
+            putString(buffer, reservation.specialRequests());
+        }
+    }
+
+    /** Throws like {@link #putPayload} if a field is too long to encode; {@code null} payloads pass. */
+    static void checkPayload(Booking booking, Reservation reservation) {
+        if (booking != null) {
+            checkString(booking.passengerName());
+            checkString(booking.bookingNumber());
+            checkString(booking.specialRequests());
+        }
+        if (reservation != null) {
+            checkString(reservation.passengerName());
+            checkString(reservation.reservationId());
+            checkString(reservation.specialRequests());
+        }
+    }
+
+    static SeatStatus status(byte ordinal) {
+        if (ordinal < 0 || ordinal >= STATUSES.length) {
+            throw new IllegalArgumentException("Unknown seat status " + ordinal);
+        }
+        return STATUSES[ordinal];
+    }
+
+    /** Reads the booking that follows an OCCUPIED status. */
+    static Booking getBooking(ByteBuffer buffer) {
+        return new Booking(getString(buffer), getString(buffer), getString(buffer));
+    }
+
+    /** Reads the reservation that follows a RESERVED status. */
+    static Reservation getReservation(ByteBuffer buffer) {
+        String passengerName = getString(buffer);
+        String reservationId = getString(buffer);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return new Reservation(passengerName, reservationId,
+                               seconds == NO_EXPIRATION ? null : Instant.ofEpochSecond(seconds, nanos),
+                               getString(buffer));
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw fieldTooLong();
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static void checkString(String value) {
+        // A UTF-8 char takes at most three bytes, so short strings need no encoding
+        if (value == null || value.length() * 3 <= Short.MAX_VALUE) return;
+        if (value.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE) throw fieldTooLong();
+    }
+
+    private static IllegalArgumentException fieldTooLong() {
+        return new IllegalArgumentException("Field longer than " + Short.MAX_VALUE + " bytes");
+    }
+
+    static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine behind a {@link SeatPlan}. Seats are addressed by their position in the plan,
+ * which is section by section, row by row, letter by letter. A store backed by a file is closed
+ * with its plan; in-memory stores have nothing to force or close.
+ */
+public interface SeatStore extends AutoCloseable {
+    int size();
+
+    /** Returns the seat at {@code index} as an immutable {@link Seat}. */
+    Seat get(int index);
+
+    int getRow(int index);
+
+    SeatClass getSeatClass(int index);
+
+    SeatPosition getPosition(int index);
+
+    boolean isExitRow(int index);
+
+    SeatStatus getStatus(int index);
+
+    Booking getBooking(int index);
+
+    Reservation getReservation(int index);
+
+    void update(int index, SeatStatus status, Booking booking, Reservation reservation);
+
+    default Stream<Seat> stream() {
+        return IntStream.range(0, size()).mapToObj(this::get);
+    }
+
+    /** Writes every change made so far to the storage device. */
+    default void force() {
+    }
+
+    /** Forces and releases whatever backs the store; it must not be used afterwards. */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,68 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for one seat changing status. It lasts from the start of the seat plan
+ * operation until the change is applied and, with a journal, durable, so lock waits, CAS retries
+ * and journal syncs all count. Only transitions taking at least the threshold, 10 ms by default,
+ * are recorded; lower it in the recording settings to see every transition. Without a recording
+ * the event costs a flag check.
+ */
+@Name("seatplan.SeatTransition")
+@Label("Seat Transition")
+@Category("Seat Plan")
+@Description("A seat changing status, from the start of the plan operation until the change was durable")
+@Threshold("10 ms")
+public class SeatTransitionEvent extends Event {
+    @Label("Aircraft Type")
+    String aircraftType;
+    @Label("Operation")
+    String operation;
+    @Label("Row")
+    int row;
+    @Label("Seat Letter")
+    String seatLetter;
+    @Label("Seat Class")
+    String seatClass;
+    @Label("From Status")
+    String fromStatus;
+    @Label("To Status")
+    String toStatus;
+
+    /** Fills in and commits the event if the recording wants it; call once the change is durable. */
+    void commit(SeatLayout layout, SeatJournal.Operation operation, int index, SeatStatus from, SeatStatus to) {
+        if (!shouldCommit()) return;
+        this.aircraftType = layout.getAircraftType();
+        this.operation = operation.name();
+        this.row = layout.getRow(index);
+        this.seatLetter = layout.getSeatLetter(index);
+        this.seatClass = layout.getSeatClass(index).name();
+        this.fromStatus = from.name();
+        this.toStatus = to.name();
+        commit();
+    }
+
+    /** Begins one event per seat of a group booking, or returns {@code null} if the event is disabled. */
+    static SeatTransitionEvent[] beginGroup(int size) {
+        SeatTransitionEvent first = new SeatTransitionEvent();
+        if (!first.isEnabled()) return null;
+        SeatTransitionEvent[] events = new SeatTransitionEvent[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = i == 0 ? first : new SeatTransitionEvent();
+            events[i].begin();
+        }
+        return events;
+    }
+
+    /** Commits the events of {@link #beginGroup} for the seats at {@code indices}, now booked. */
+    static void commitGroup(SeatTransitionEvent[] events, SeatLayout layout, int[] indices) {
+        if (events == null) return;
+        for (int i = 0; i < indices.length; i++) {
+            events[i].commit(layout, SeatJournal.Operation.BOOK_GROUP, indices[i], SeatStatus.AVAILABLE, SeatStatus.OCCUPIED);
+        }
+    }
+}
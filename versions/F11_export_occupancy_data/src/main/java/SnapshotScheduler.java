@@ -0,0 +1,83 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link SeatSnapshot} of a plan at a fixed interval so recovery only has to replay the
+ * journal records since the last one, and drops the records each snapshot covers from the journal.
+ * Intervals in which the journal did not grow are skipped.
+ */
+public class SnapshotScheduler implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotScheduler.class);
+    private final SeatPlan seatPlan;
+    private final Path file;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ScheduledFuture<?> task;
+    private long lastJournalPosition = -1;
+
+    public SnapshotScheduler(SeatPlan seatPlan, Path file, Duration interval) {
+        this(seatPlan, file, interval, newExecutor(), true);
+    }
+
+    /** Writes snapshots on {@code executor}, which stays open when this scheduler is closed. */
+    public SnapshotScheduler(SeatPlan seatPlan, Path file, Duration interval, ScheduledExecutorService executor) {
+        this(seatPlan, file, interval, executor, false);
+    }
+
+    private SnapshotScheduler(SeatPlan seatPlan, Path file, Duration interval,
+                              ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.seatPlan = seatPlan;
+        this.file = file;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        long millis = interval.toMillis();
+        this.task = executor.scheduleWithFixedDelay(this::snapshot, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a snapshot now unless nothing was journaled since the previous one, then drops the
+     * journal records it covers so the journal only grows by what happens between snapshots.
+     */
+    public synchronized void snapshot() {
+        SeatJournal journal = seatPlan.getJournal();
+        if (journal != null && journal.getPosition() == lastJournalPosition) return;
+        try {
+            lastJournalPosition = SeatSnapshot.write(seatPlan, file);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write snapshot {}", file, e);
+            return;
+        }
+        // A journal attached meanwhile did not get its position from this snapshot
+        if (journal != null && seatPlan.getJournal() == journal) {
+            try {
+                journal.truncateBefore(lastJournalPosition);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to truncate journal {} after snapshot {}", journal.getFile(), file, e);
+            }
+        }
+    }
+
+    static ScheduledExecutorService newExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Hammers row-striped and lock-free {@link SeatPlan}s from many threads and fails if any seat is
+ * handed out twice or the plan's counters drift from its seats.
+ * <p>
+ * The booking race has every thread try to book every seat in its own random order; each seat must
+ * be won exactly once and end up holding the winner's booking. Mixed operations have threads mix
+ * reservations, confirmations, swaps, cancellations and blocks on random seats, then check the
+ * occupancy counters against a full scan. The swap race books every seat for a passenger of its
+ * own and has the threads only swap random seats; afterwards every passenger must still hold
+ * exactly one seat. The group race books a row as one group while another thread books the same
+ * seats one by one; one of them must end up with the whole row.
+ */
+class ConcurrentBookingStressTest {
+    private static final int THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int ROUNDS = 50;
+    private static final int MIXED_OPERATIONS = 200_000;
+    private static final int SWAPS = 200_000;
+    private static final int GROUP_ROUNDS = 2_000;
+
+    private ExecutorService executor;
+
+    static Stream<Arguments> plans() {
+        List<Arguments> plans = new ArrayList<>();
+        for (int rowsPerStripe : new int[]{1, 4}) {
+            plans.add(plan("objects store, " + rowsPerStripe + " row(s) per stripe",
+                    () -> new SeatPlan(ObjectSeatStore::new, rowsPerStripe)));
+            plans.add(plan("columnar store, " + rowsPerStripe + " row(s) per stripe",
+                    () -> new SeatPlan(ColumnarSeatStore::new, rowsPerStripe)));
+        }
+        plans.add(plan("lock-free", LockFreeSeatPlan::new));
+        return plans.stream();
+    }
+
+    private static Arguments plan(String name, Supplier<SeatPlan> factory) {
+        return Arguments.of(name, factory);
+    }
+
+    @BeforeEach
+    void startThreads() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void stopThreads() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void everySeatIsWonExactlyOnce(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            bookingRace(planFactory.get());
+        }
+    }
+
+    private void bookingRace(SeatPlan plan) throws Exception {
+        List<Seat> seats = plan.getSeats();
+        AtomicIntegerArray winners = new AtomicIntegerArray(seats.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t + 1;
+            futures.add(executor.submit(() -> {
+                List<Integer> order = new ArrayList<>();
+                for (int i = 0; i < seats.size(); i++) order.add(i);
+                Collections.shuffle(order, new Random(thread));
+                Booking booking = new Booking("Passenger " + thread, "BN-" + thread, "");
+                start.await();
+                for (int i : order) {
+                    Seat seat = seats.get(i);
+                    if (plan.bookSeat(seat.getRow(), seat.getSeatLetter(), booking)
+                            && !winners.compareAndSet(i, 0, thread)) {
+                        fail("Seat " + seat.getRow() + seat.getSeatLetter()
+                                + " booked by threads " + winners.get(i) + " and " + thread);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = plan.getSeat(seats.get(i).getRow(), seats.get(i).getSeatLetter());
+            assertNotEquals(0, winners.get(i), "Nobody won seat " + seat.getRow() + seat.getSeatLetter());
+            assertEquals(SeatStatus.OCCUPIED, seat.getStatus(), () -> "Seat not booked: " + seat);
+            assertEquals("BN-" + winners.get(i), seat.getBooking().bookingNumber(),
+                    () -> "Seat does not hold the winning booking: " + seat);
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void mixedOperationsKeepSeatsAndCountersConsistent(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        SeatPlan plan = planFactory.get();
+        List<Seat> seats = plan.getSeats();
+        plan.setVerifyOccupancyCounters(true);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                Booking booking = new Booking("Passenger " + thread, "BN-" + thread, "");
+                Reservation reservation = new Reservation("Passenger " + thread, "RS-" + thread,
+                        Instant.now().plusMillis(random.nextInt(50)), "");
+                for (int i = 0; i < MIXED_OPERATIONS / THREADS; i++) {
+                    Seat a = seats.get(random.nextInt(seats.size()));
+                    Seat b = seats.get(random.nextInt(seats.size()));
+                    switch (random.nextInt(8)) {
+                        case 0 -> plan.bookSeat(a.getRow(), a.getSeatLetter(), booking);
+                        case 1 -> plan.reserveSeat(a.getRow(), a.getSeatLetter(), reservation);
+                        case 2 -> plan.confirmReservation(a.getRow(), a.getSeatLetter(), "BN-" + thread);
+                        case 3 -> plan.swapSeats(a.getRow(), a.getSeatLetter(), b.getRow(), b.getSeatLetter());
+                        case 4 -> plan.cancelSeat(a.getRow(), a.getSeatLetter());
+                        case 5 -> plan.blockSeat(a.getRow(), a.getSeatLetter());
+                        case 6 -> plan.releaseSeat(a.getRow(), a.getSeatLetter());
+                        default -> plan.releaseExpiredReservations();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        plan.calculateOccupancyStats();  // throws if the counters drifted
+
+        for (Seat seat : plan.getSeats()) {
+            boolean consistent = switch (seat.getStatus()) {
+                case OCCUPIED -> seat.getBooking() != null && seat.getReservation() == null;
+                case RESERVED -> seat.getReservation() != null && seat.getBooking() == null;
+                default -> seat.getBooking() == null && seat.getReservation() == null;
+            };
+            assertTrue(consistent, () -> "Inconsistent seat after mixed operations: " + seat);
+        }
+        assertEquals(plan.countAvailableSeats(null, null, false), plan.findAvailableSeats(null, null, false).size(),
+                "Availability bitsets disagree with seat statuses");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void swapsNeverSplitABooking(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        SeatPlan plan = planFactory.get();
+        List<Seat> seats = plan.getSeats();
+        for (int i = 0; i < seats.size(); i++) {
+            plan.bookSeat(seats.get(i).getRow(), seats.get(i).getSeatLetter(), new Booking("Passenger " + i, "BN-" + i, ""));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                start.await();
+                for (int i = 0; i < SWAPS / THREADS; i++) {
+                    Seat a = seats.get(random.nextInt(seats.size()));
+                    Seat b = seats.get(random.nextInt(seats.size()));
+                    plan.swapSeats(a.getRow(), a.getSeatLetter(), b.getRow(), b.getSeatLetter());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        // A swap that went half through leaves one passenger in two seats and another in none
+        boolean[] seated = new boolean[seats.size()];
+        for (Seat seat : plan.getSeats()) {
+            int passenger = Integer.parseInt(seat.getBooking().bookingNumber().substring("BN-".length()));
+            assertFalse(seated[passenger], "Booking BN-" + passenger + " holds two seats after swaps");
+            seated[passenger] = true;
+        }
+    }
+
+    // A group that holds some seats while it fails on another can turn away a single booking of a
+    // seat it then gives back, leaving the seat free although both asked for it
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void groupBookingsAreAllOrNothing(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        for (int round = 0; round < GROUP_ROUNDS; round++) {
+            SeatPlan plan = planFactory.get();
+            int row = plan.getLayout().getMaxRow();
+            List<String> letters = plan.getSeats().stream()
+                    .filter(seat -> seat.getRow() == row).map(Seat::getSeatLetter).toList();
+            int[] indices = letters.stream().mapToInt(letter -> plan.getLayout().indexOf(row, letter)).toArray();
+            List<Booking> group = letters.stream().map(letter -> new Booking("Group " + letter, "BN-G", "")).toList();
+            CountDownLatch start = new CountDownLatch(1);
+
+            Future<?> groupBooking = executor.submit(() -> {
+                start.await();
+                return plan.bookGroupSeats(indices, group);
+            });
+            Future<?> singleBookings = executor.submit(() -> {
+                start.await();
+                for (int i = letters.size() - 1; i >= 0; i--) {
+                    plan.bookSeat(row, letters.get(i), new Booking("Single " + letters.get(i), "BN-S", ""));
+                }
+                return null;
+            });
+            start.countDown();
+            groupBooking.get();
+            singleBookings.get();
+
+            List<String> holders = letters.stream().map(letter -> {
+                Booking booking = plan.getSeat(row, letter).getBooking();
+                return booking == null ? "nobody" : booking.bookingNumber();
+            }).distinct().toList();
+            assertTrue(holders.equals(List.of("BN-G")) || holders.equals(List.of("BN-S")),
+                    () -> "Row " + row + " ended up held by " + holders);
+        }
+    }
+}
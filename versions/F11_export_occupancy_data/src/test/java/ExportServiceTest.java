@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/** Completion of background exports run by {@link ExportService}. */
+class ExportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    // Only IOExceptions and RuntimeExceptions used to finish the job, an Error left waiters hanging
+    @Test
+    void errorFailsTheJob() {
+        Path file = directory.resolve("manifest.csv");
+        try (ExportService exports = new ExportService()) {
+            ExportJob failing = exports.submit("failing", new SeatPlan(), file, (snapshot, out) -> {
+                out.text("partial");
+                out.flush();
+                throw new OutOfMemoryError("simulated");
+            });
+            ExecutionException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                    assertThrows(ExecutionException.class, () -> failing.getCompletion().get()));
+            assertInstanceOf(OutOfMemoryError.class, e.getCause());
+            assertEquals(ExportJob.State.FAILED, failing.getState());
+            assertFalse(Files.exists(file.resolveSibling("manifest.csv.part")), "partial file left behind");
+
+            ExportJob next = exports.submit("next", new SeatPlan(), file, (snapshot, out) -> out.text("ok"));
+            assertEquals(file, assertTimeoutPreemptively(Duration.ofSeconds(10), () -> next.getCompletion().get()));
+        }
+    }
+}
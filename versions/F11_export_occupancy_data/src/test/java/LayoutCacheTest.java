@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/** Loading and sharing of {@link SeatLayout}s through {@link LayoutCache}. */
+class LayoutCacheTest {
+
+    @Test
+    void registryAndPlansShareTheBundledLayouts() {
+        try (FlightRegistry registry = new FlightRegistry()) {
+            assertSame(SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900),
+                    registry.getLayout(SeatLayout.AIRBUS_A350_900));
+        }
+    }
+
+    // Loads used to run inside computeIfAbsent, where a slow file held up every key of its bin
+    @Test
+    void slowLoadDoesNotBlockOtherTypes() throws Exception {
+        SeatLayout layout = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+        CountDownLatch slowLoadStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowLoad = new CountDownLatch(1);
+        LayoutCache cache = new LayoutCache(type -> {
+            if (type.equals("slow")) {
+                slowLoadStarted.countDown();
+                try {
+                    releaseSlowLoad.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return layout;
+        });
+        CompletableFuture<SeatLayout> slow = CompletableFuture.supplyAsync(() -> cache.get("slow"));
+        slowLoadStarted.await();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 64; i++) {
+                cache.get("type-" + i);
+            }
+        }, "loads of other aircraft types while one is slow");
+        releaseSlowLoad.countDown();
+        assertSame(layout, slow.get());
+    }
+
+    @Test
+    void failedLoadIsRetried() {
+        SeatLayout layout = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+        AtomicInteger loads = new AtomicInteger();
+        LayoutCache cache = new LayoutCache(type -> {
+            if (loads.incrementAndGet() == 1) throw new IllegalStateException("template unreadable");
+            return layout;
+        });
+        assertThrows(IllegalStateException.class, () -> cache.get("A"));
+        assertSame(layout, cache.get("A"));
+        assertSame(layout, cache.get("A"));
+        assertEquals(2, loads.get(), "loads of one aircraft type");
+    }
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Reopening and validating the seat map files of {@link MappedSeatStore}. */
+class MappedSeatStoreTest {
+    private static final SeatLayout LAYOUT = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+    // Status bytes follow the header: magic, version, unused, seat count, records end, aircraft type
+    private static final int STATUSES_OFFSET = 48;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void seatsSurviveClosingThePlan() throws IOException {
+        Path file = directory.resolve("flight.seats");
+        try (SeatPlan plan = new SeatPlan(LAYOUT, MappedSeatStore.factory(file), 1)) {
+            plan.bookSeat(1, "A", new Booking("Passenger", "BN-1", "Window"));
+            plan.reserveSeat(20, "C", new Reservation("Passenger", "RS-1", null, ""));
+        }
+        try (SeatPlan plan = new SeatPlan(LAYOUT, MappedSeatStore.factory(file), 1)) {
+            assertEquals(new Booking("Passenger", "BN-1", "Window"), plan.getSeat(1, "A").getBooking());
+            assertEquals(SeatStatus.RESERVED, plan.getSeat(20, "C").getStatus());
+            assertNull(plan.getSeat(1, "B").getBooking());
+            assertEquals(1, plan.calculateOccupancyStats().get(LAYOUT.getSeatClass(0)).occupied());
+        }
+    }
+
+    @Test
+    void unknownStatusIsRejectedOnOpen() throws IOException {
+        Path file = directory.resolve("flight.seats");
+        MappedSeatStore.open(file, LAYOUT).close();
+        overwrite(file, STATUSES_OFFSET + LAYOUT.indexOf(2, "A"), (byte) 42);
+        IOException e = assertThrows(IOException.class, () -> MappedSeatStore.open(file, LAYOUT));
+        assertEquals(file + " is damaged: seat " + LAYOUT.indexOf(2, "A") + " has status 42", e.getMessage());
+    }
+
+    @Test
+    void bookedSeatWithoutRecordIsRejectedOnOpen() throws IOException {
+        Path file = directory.resolve("flight.seats");
+        MappedSeatStore.open(file, LAYOUT).close();
+        overwrite(file, STATUSES_OFFSET + LAYOUT.indexOf(3, "A"), (byte) SeatStatus.OCCUPIED.ordinal());
+        assertThrows(IOException.class, () -> MappedSeatStore.open(file, LAYOUT));
+    }
+
+    private static void overwrite(Path file, long position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+        }
+    }
+}
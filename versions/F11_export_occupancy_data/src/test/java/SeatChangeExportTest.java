@@ -0,0 +1,133 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Exports of the seats changed since a change sequence, on locked and lock-free plans. */
+class SeatChangeExportTest {
+
+    static Stream<Arguments> plans() {
+        return Stream.of(
+                Arguments.of("row-striped", (Supplier<SeatPlan>) SeatPlan::new),
+                Arguments.of("lock-free", (Supplier<SeatPlan>) LockFreeSeatPlan::new));
+    }
+
+    // Both seats of a swap change passenger, so both must be in the changes after it
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void swapExportsBothSeats(String name, Supplier<SeatPlan> planFactory) throws IOException {
+        SeatPlan plan = planFactory.get();
+        plan.bookSeat(1, "B", new Booking("Passenger 1B", "BN-1", ""));
+        plan.bookSeat(1, "C", new Booking("Passenger 1C", "BN-2", ""));
+        long sequence = plan.getChangeSequence();
+        plan.swapSeats(1, "B", 1, "C");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter out = new ReportWriter(Channels.newChannel(bytes))) {
+            SeatExports.writeChanges(plan, sequence, ExportFormat.CSV.newEncoder(out));
+        }
+        long records = bytes.toString(StandardCharsets.UTF_8).lines().count() - 1;  // minus the header
+        assertEquals(2, records, "records exported for one swap");
+
+        Map<String, String> changed = new HashMap<>();
+        plan.forEachSeatChangedSince(sequence, (seat, seatSequence) ->
+                changed.put(seat.getRow() + seat.getSeatLetter(), seat.getBooking().bookingNumber()));
+        assertEquals(Map.of("1B", "BN-2", "1C", "BN-1"), changed);
+    }
+
+    // A cursor from before a restart must not hide changes the new plan numbered below it
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void cursorOfAnotherEpochExportsEverything(String name, Supplier<SeatPlan> planFactory) throws IOException {
+        SeatPlan before = planFactory.get();
+        for (int row = 1; row <= 5; row++) {
+            before.bookSeat(row, "A", new Booking("Passenger " + row, "BN-" + row, ""));
+        }
+        ChangeCursor cursor;
+        try (ReportWriter out = new ReportWriter(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            cursor = ChangeCursor.parse(
+                    SeatExports.writeChanges(before, ChangeCursor.START, ExportFormat.CSV.newEncoder(out)).toString());
+        }
+        assertEquals(5, cursor.sequence(), "sequence after five bookings");
+
+        SeatPlan restarted = planFactory.get();
+        restarted.bookSeat(1, "A", new Booking("Passenger 1", "BN-1", ""));
+        restarted.bookSeat(2, "C", new Booking("Passenger 2", "BN-2", ""));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChangeCursor next;
+        try (ReportWriter out = new ReportWriter(Channels.newChannel(bytes))) {
+            next = SeatExports.writeChanges(restarted, cursor, ExportFormat.CSV.newEncoder(out));
+        }
+        assertEquals(2, bytes.toString(StandardCharsets.UTF_8).lines().count() - 1, "records exported after the restart");
+        assertEquals(new ChangeCursor(restarted.getChangeEpoch(), 2), next);
+        assertEquals(next, cursor.max(next), "a cursor of the current epoch wins");
+        assertEquals(restarted.getChangeEpoch(), restarted.copy().getChangeEpoch(), "epoch of a copy");
+    }
+
+    // Exports must not wait for writers to pause, and once they stop every change is covered
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void exportsKeepUpWithSustainedWrites(String name, Supplier<SeatPlan> planFactory) throws Exception {
+        SeatPlan plan = planFactory.get();
+        List<Seat> seats = plan.getSeats();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    Random random = new Random(thread);
+                    Booking booking = new Booking("Passenger " + thread, "BN-" + thread, "");
+                    while (running.get()) {
+                        Seat seat = seats.get(random.nextInt(seats.size()));
+                        if (!plan.bookSeat(seat.getRow(), seat.getSeatLetter(), booking)) {
+                            plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+                        }
+                    }
+                }));
+            }
+            long sequence = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (plan.getChangeSequence() < 10_000) {
+                    Thread.onSpinWait();
+                }
+                long resume = 0;
+                for (int i = 0; i < 200; i++) {
+                    resume = plan.forEachSeatChangedSince(resume, (seat, seatSequence) -> { });
+                }
+                return resume;
+            }, "exports while seats keep changing");
+            running.set(false);
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            assertTrue(sequence > 0, "exports never moved past the first change");
+            assertEquals(plan.getChangeSequence(), plan.forEachSeatChangedSince(sequence, (seat, seatSequence) -> { }),
+                    "resume sequence once the writers stopped");
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Replay of {@link SeatJournal}s and dropping the records a {@link SeatSnapshot} covers. */
+class SeatJournalTest {
+    private static final SeatLayout LAYOUT = SeatLayout.forAircraftType(SeatLayout.AIRBUS_A350_900);
+
+    @TempDir
+    Path directory;
+
+    // Far more than one read buffer of records, and group records larger than the buffer itself
+    @Test
+    void replayReadsRecordsAcrossBufferRefills() throws IOException {
+        Path journalFile = directory.resolve("journal.bin");
+        SeatPlan plan = new SeatPlan(LAYOUT, ColumnarSeatStore::new, 1);
+        try (SeatJournal journal = SeatJournal.open(journalFile, SeatJournal.SyncPolicy.NO_SYNC)) {
+            plan.setJournal(journal);
+            mutate(plan, 20_000);
+            String requests = "x".repeat(10_000);
+            List<Booking> group = new ArrayList<>();
+            for (int i = 0; i < 8; i++) group.add(new Booking("Group " + i, "BN-G" + i, requests));
+            assertEquals(8, plan.bookGroup(SeatClass.ECONOMY, group).size());
+        }
+        assertTrue(Files.size(journalFile) > 10 * 64 * 1024, "journal spans many read buffers");
+
+        SeatPlan recovered = SeatSnapshot.recover(LAYOUT, l -> new SeatPlan(l, ColumnarSeatStore::new, 1),
+                                                  directory.resolve("no-snapshot.bin"), journalFile);
+        assertEquals(plan.getSeats(), recovered.getSeats());
+    }
+
+    @Test
+    void snapshotDropsTheRecordsItCovers() throws IOException {
+        Path journalFile = directory.resolve("journal.bin");
+        Path snapshotFile = directory.resolve("snapshot.bin");
+        SeatPlan plan = new SeatPlan(LAYOUT, ColumnarSeatStore::new, 1);
+        try (SeatJournal journal = SeatJournal.open(journalFile, SeatJournal.SyncPolicy.GROUP);
+             SnapshotScheduler snapshots = new SnapshotScheduler(plan, snapshotFile, Duration.ofHours(1))) {
+            plan.setJournal(journal);
+            mutate(plan, 5_000);
+            long sizeBefore = Files.size(journalFile);
+            long position = journal.getPosition();
+            snapshots.snapshot();
+            assertEquals(SeatJournal.HEADER_SIZE, Files.size(journalFile), "journal size after a snapshot");
+            assertTrue(sizeBefore > SeatJournal.HEADER_SIZE, "journal had records before the snapshot");
+            assertEquals(position, journal.getPosition(), "positions keep counting after the truncation");
+
+            mutate(plan, 500);
+        }
+
+        SeatPlan recovered = SeatSnapshot.recover(LAYOUT, l -> new SeatPlan(l, ColumnarSeatStore::new, 1),
+                                                  snapshotFile, journalFile);
+        assertEquals(plan.getSeats(), recovered.getSeats());
+        assertThrows(IllegalStateException.class, () -> SeatSnapshot.recover(LAYOUT,
+                l -> new SeatPlan(l, ColumnarSeatStore::new, 1), directory.resolve("no-snapshot.bin"), journalFile),
+                "replaying a truncated journal without its snapshot");
+    }
+
+    private static void mutate(SeatPlan plan, int operations) {
+        Random random = new Random(operations);
+        List<Seat> seats = plan.getSeats();
+        for (int i = 0; i < operations; i++) {
+            Seat seat = seats.get(random.nextInt(seats.size()));
+            if (!plan.bookSeat(seat.getRow(), seat.getSeatLetter(), new Booking("Passenger " + i, "BN-" + i, ""))) {
+                plan.cancelSeat(seat.getRow(), seat.getSeatLetter());
+            }
+        }
+    }
+}
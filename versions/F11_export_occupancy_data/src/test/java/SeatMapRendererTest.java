@@ -0,0 +1,61 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/** The row cache of {@link SeatMapRenderer} on locked and lock-free plans. */
+class SeatMapRendererTest {
+    private static final Booking BOOKING = new Booking("Passenger", "BN-1", "");
+    private static final Reservation RESERVATION = new Reservation("Passenger", "RS-1", null, "");
+
+    static Stream<Arguments> plans() {
+        return Stream.of(
+                Arguments.of("row-striped", (Supplier<SeatPlan>) SeatPlan::new),
+                Arguments.of("lock-free", (Supplier<SeatPlan>) LockFreeSeatPlan::new));
+    }
+
+    // Renders after each change, so a row whose version did not move on would show its old line
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void cachedRowsFollowEveryChange(String name, Supplier<SeatPlan> planFactory) {
+        SeatPlan plan = planFactory.get();
+        SeatMapRenderer renderer = new SeatMapRenderer();
+        Map<String, Runnable> changes = new LinkedHashMap<>();
+        changes.put("book 1A", () -> plan.bookSeat(1, "A", BOOKING));
+        changes.put("reserve 20A", () -> plan.reserveSeat(20, "A", RESERVATION));
+        changes.put("swap 1A and 20A, different statuses", () -> plan.swapSeats(1, "A", 20, "A"));
+        changes.put("book 20B", () -> plan.bookSeat(20, "B", BOOKING));
+        changes.put("swap 1A and 20B", () -> plan.swapSeats(1, "A", 20, "B"));
+        changes.put("confirm 20A", () -> plan.confirmReservation(20, "A", "BN-2"));
+        changes.put("cancel 1A", () -> plan.cancelSeat(1, "A"));
+        changes.put("block 30C", () -> plan.blockSeat(30, "C"));
+        changes.put("release 30C", () -> plan.releaseSeat(30, "C"));
+        renderer.render(plan);
+        for (Map.Entry<String, Runnable> change : changes.entrySet()) {
+            change.getValue().run();
+            assertEquals(new SeatMapRenderer().render(plan).toString(), renderer.render(plan).toString(),
+                    "cached seat map after " + change.getKey());
+        }
+    }
+
+    // A swap keeps both statuses, so the text cannot show it; the rows must still move on
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("plans")
+    void swapMovesBothRowVersions(String name, Supplier<SeatPlan> planFactory) {
+        SeatPlan plan = planFactory.get();
+        plan.bookSeat(1, "A", BOOKING);
+        plan.bookSeat(20, "B", new Booking("Passenger", "BN-2", ""));
+        long row1 = plan.getRowVersion(1);
+        long row20 = plan.getRowVersion(20);
+        plan.swapSeats(1, "A", 20, "B");
+        assertNotEquals(row1, plan.getRowVersion(1), "version of row 1");
+        assertNotEquals(row20, plan.getRowVersion(20), "version of row 20");
+    }
+}